@@ -3,9 +3,11 @@ package org.egov;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan(basePackages = {"org.egov", "org.egov.web.controllers", "org.egov.config"})
+@EnableScheduling
 public class BankAccountServiceMain {
 
     public static void main(String[] args) {
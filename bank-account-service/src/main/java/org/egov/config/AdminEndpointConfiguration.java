@@ -0,0 +1,33 @@
+package org.egov.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Protects the operational endpoints under {@code /bankaccount/admin} with the shared admin token, see
+ * {@link AdminTokenInterceptor}. They change state for any tenant, so they must not rely on the gateway
+ * alone.
+ */
+@Configuration
+public class AdminEndpointConfiguration implements WebMvcConfigurer {
+
+    private static final String[] ADMIN_PATHS = {
+            "/bankaccount/admin/v1/datakey/**",
+            "/bankaccount/admin/v1/referencecache/**"
+    };
+
+    private final BankAccountServiceConfiguration configuration;
+
+    @Autowired
+    public AdminEndpointConfiguration(BankAccountServiceConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdminTokenInterceptor(configuration.getAdminToken()))
+                .addPathPatterns(ADMIN_PATHS);
+    }
+}
@@ -0,0 +1,43 @@
+package org.egov.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Admits requests to the operational endpoints only with the configured admin token in the
+ * {@value #ADMIN_TOKEN_HEADER} header. Without a configured token the endpoints are disabled.
+ */
+@Slf4j
+public class AdminTokenInterceptor implements HandlerInterceptor {
+
+    public static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    private final byte[] adminToken;
+
+    public AdminTokenInterceptor(String adminToken) {
+        this.adminToken = StringUtils.hasText(adminToken) ? adminToken.trim().getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (adminToken == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return false;
+        }
+
+        String token = request.getHeader(ADMIN_TOKEN_HEADER);
+        // Constant time, so that the token cannot be guessed from response times
+        if (token == null || !MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected admin request to {} from {}", request.getRequestURI(), request.getRemoteAddr());
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return false;
+        }
+        return true;
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import java.util.Map;
 import java.util.TimeZone;
 
 @Component
@@ -65,6 +66,45 @@ public class BankAccountServiceConfiguration {
     @Value("${egov.organisation.search.endpoint}")
     private String organisationSearchEndpoint;
 
+    // Reference ID validation: thread pool running individual and organisation searches concurrently
+    @Value("${bank.account.reference.validation.pool.size:8}")
+    private Integer referenceValidationPoolSize;
+
+    // Reference ID cache: existence of individuals/organisations per (tenantId, serviceCode, referenceId)
+    @Value("${bank.account.reference.cache.enabled:true}")
+    private Boolean referenceCacheEnabled;
+
+    @Value("${bank.account.reference.cache.max.size:50000}")
+    private Long referenceCacheMaxSize;
+
+    @Value("${bank.account.reference.cache.positive.ttl.seconds:3600}")
+    private Long referenceCachePositiveTtlSeconds;
+
+    @Value("${bank.account.reference.cache.negative.ttl.seconds:60}")
+    private Long referenceCacheNegativeTtlSeconds;
+
+    // Downstream HTTP client pool
+    @Value("${bank.account.http.max.total:200}")
+    private Integer httpMaxTotal;
+
+    @Value("${bank.account.http.max.per.route:50}")
+    private Integer httpMaxPerRoute;
+
+    @Value("#{${bank.account.http.route.max.connections:{:}}}")
+    private Map<String, Integer> httpRouteMaxConnections;
+
+    @Value("${bank.account.http.connect.timeout.ms:2000}")
+    private Integer httpConnectTimeoutMs;
+
+    @Value("${bank.account.http.read.timeout.ms:5000}")
+    private Integer httpReadTimeoutMs;
+
+    @Value("${bank.account.http.connection.request.timeout.ms:1000}")
+    private Integer httpConnectionRequestTimeoutMs;
+
+    @Value("${bank.account.http.idle.eviction.seconds:30}")
+    private Integer httpIdleEvictionSeconds;
+
     // Workflow Service Configuration
     @Value("${egov.workflow.host}")
     private String workflowHost;
@@ -95,6 +135,44 @@ public class BankAccountServiceConfiguration {
     @Value("${bank.account.kafka.delete.topic}")
     private String deleteBankAccountTopic;
 
+    @Value("${bank.account.kafka.keyed.publish.enabled:false}")
+    private Boolean kafkaKeyedPublishEnabled;
+
+    // Pending creates merged into search until persisted
+    @Value("${bank.account.pending.enabled:true}")
+    private Boolean pendingEnabled;
+
+    @Value("${bank.account.pending.max.size:10000}")
+    private Long pendingMaxSize;
+
+    @Value("${bank.account.pending.ttl.seconds:30}")
+    private Long pendingTtlSeconds;
+
+    // Outbox of records whose Kafka send failed
+    @Value("${bank.account.outbox.enabled:true}")
+    private Boolean outboxEnabled;
+
+    @Value("${bank.account.outbox.relay.batch.size:100}")
+    private Integer outboxRelayBatchSize;
+
+    @Value("${bank.account.outbox.relay.send.timeout.ms:30000}")
+    private Long outboxRelaySendTimeoutMs;
+
+    @Value("${bank.account.outbox.relay.lease.ms:60000}")
+    private Long outboxRelayLeaseMs;
+
+    @Value("${bank.account.outbox.backoff.initial.ms:1000}")
+    private Long outboxBackoffInitialMs;
+
+    @Value("${bank.account.outbox.backoff.max.ms:300000}")
+    private Long outboxBackoffMaxMs;
+
+    @Value("${bank.account.outbox.store.threads:2}")
+    private Integer outboxStoreThreads;
+
+    @Value("${bank.account.outbox.store.queue.capacity:10000}")
+    private Integer outboxStoreQueueCapacity;
+
     // Search Configuration
     @Value("${bank.account.default.offset}")
     private Integer defaultOffset;
@@ -105,10 +183,48 @@ public class BankAccountServiceConfiguration {
     @Value("${bank.account.search.max.limit}")
     private Integer maxLimit;
 
+    @Value("${bank.account.search.lazy.json.enabled:true}")
+    private Boolean searchLazyJsonEnabled;
+
+    // Export Configuration
+    @Value("${bank.account.export.fetch.size:500}")
+    private Integer exportFetchSize;
+
+    @Value("${bank.account.export.batch.size:100}")
+    private Integer exportBatchSize;
+
     // Encryption Configuration
     @Value("${state.level.tenant.id}")
     private String stateLevelTenantId;
 
+    @Value("${bank.account.encryption.engine:passthrough}")
+    private String encryptionEngine;
+
+    @Value("${bank.account.encryption.keystore.path:}")
+    private String encryptionKeystorePath;
+
+    @Value("${bank.account.encryption.keystore.password:}")
+    private String encryptionKeystorePassword;
+
+    @Value("${bank.account.encryption.master.key.alias:bank-account-master}")
+    private String encryptionMasterKeyAlias;
+
+    @Value("${bank.account.encryption.data.key.cache.seconds:300}")
+    private Long encryptionDataKeyCacheSeconds;
+
+    // Shared token of the operational endpoints under /bankaccount/admin; unset disables them
+    @Value("${bank.account.admin.token:}")
+    private String adminToken;
+
+    @Value("${bank.account.blind.index.key}")
+    private String blindIndexKey;
+
+    @Value("${bank.account.blind.index.backfill.enabled:true}")
+    private Boolean blindIndexBackfillEnabled;
+
+    @Value("${bank.account.blind.index.backfill.batch.size:500}")
+    private Integer blindIndexBackfillBatchSize;
+
     @PostConstruct
     public void initialize() {
         TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
@@ -0,0 +1,77 @@
+package org.egov.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Producer built from the {@code kafka.config.*} and {@code kafka.producer.config.*} properties. The
+ * producer reports the Kafka client metrics, e.g. per-topic record send rates and batch sizes, to the
+ * meter registry.
+ */
+@Configuration
+public class KafkaConfig {
+
+    @Value("${kafka.config.bootstrap_server_config}")
+    private String kafkaBootstrapServers;
+
+    @Value("${kafka.producer.config.acks_config:all}")
+    private String acks;
+
+    @Value("${kafka.producer.config.retries_config:3}")
+    private Integer retries;
+
+    @Value("${kafka.producer.config.enable_idempotence_config:true}")
+    private Boolean enableIdempotence;
+
+    @Value("${kafka.producer.config.max_in_flight_requests_per_connection:5}")
+    private Integer maxInFlightRequestsPerConnection;
+
+    @Value("${kafka.producer.config.compression_type_config:none}")
+    private String compressionType;
+
+    @Value("${kafka.producer.config.batch_size_config:16384}")
+    private Integer batchSize;
+
+    @Value("${kafka.producer.config.linger_ms_config:1}")
+    private Integer lingerMs;
+
+    @Value("${kafka.producer.config.buffer_memory_config:33554432}")
+    private Long bufferMemory;
+
+    @Bean
+    public ProducerFactory<String, Object> producerFactory(MeterRegistry meterRegistry) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaBootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, acks);
+        configProps.put(ProducerConfig.RETRIES_CONFIG, retries);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequestsPerConnection);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+}
@@ -1,20 +1,51 @@
 package org.egov.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
 
 @Configuration
+@Slf4j
 public class MainConfiguration {
 
+    private static final String HTTP_POOL_METRIC_PREFIX = "bankaccount.http.pool.";
+
     @Value("${app.timezone}")
     private String timeZone;
 
@@ -27,11 +58,139 @@ public class MainConfiguration {
     }
 
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
         MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
         converter.setObjectMapper(objectMapper());
         restTemplate.getMessageConverters().add(0, converter);
         return restTemplate;
     }
-}
\ No newline at end of file
+
+    /**
+     * HTTP client shared by all downstream calls. Connections are kept alive and pooled, acquiring a
+     * connection, connecting and reading are all bounded, and idle or expired connections are closed in
+     * the background.
+     */
+    @Bean
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+                                          BankAccountServiceConfiguration configuration) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(configuration.getHttpConnectionRequestTimeoutMs()))
+                .setResponseTimeout(Timeout.ofMilliseconds(configuration.getHttpReadTimeoutMs()))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(TimeValue.ofSeconds(configuration.getHttpIdleEvictionSeconds()))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    /**
+     * Connection pool of the shared HTTP client. Each downstream route gets its own connection limit so
+     * that a slow downstream cannot take every connection; downstreams served from the same host share
+     * one route, whose limit is the sum of theirs. Pool usage is published per route, tagged with the
+     * downstreams it serves.
+     */
+    @Bean
+    public PoolingHttpClientConnectionManager httpConnectionManager(BankAccountServiceConfiguration configuration,
+                                                                    MeterRegistry meterRegistry) {
+        Timeout socketTimeout = Timeout.ofMilliseconds(configuration.getHttpReadTimeoutMs());
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(configuration.getHttpMaxTotal())
+                .setMaxConnPerRoute(configuration.getHttpMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(configuration.getHttpConnectTimeoutMs()))
+                        .setSocketTimeout(socketTimeout)
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(configuration.getHttpIdleEvictionSeconds()))
+                        .build())
+                .build();
+
+        Map<HttpRoute, List<String>> downstreamsByRoute = new LinkedHashMap<>();
+        Map<String, String> downstreamHosts = new LinkedHashMap<>();
+        downstreamHosts.put("idgen", configuration.getIdGenHost());
+        downstreamHosts.put("individual", configuration.getIndividualHost());
+        downstreamHosts.put("organisation", configuration.getOrganisationHost());
+        downstreamHosts.put("mdms", configuration.getMdmsHost());
+        downstreamHosts.put("user", configuration.getUserHost());
+        downstreamHosts.forEach((downstream, host) -> {
+            HttpRoute route = toRoute(host);
+            if (route != null) {
+                downstreamsByRoute.computeIfAbsent(route, key -> new ArrayList<>()).add(downstream);
+            }
+        });
+
+        Map<String, Integer> routeLimits = configuration.getHttpRouteMaxConnections();
+        downstreamsByRoute.forEach((route, downstreams) -> {
+            int maxConnections = downstreams.stream()
+                    .mapToInt(downstream -> routeLimits != null && routeLimits.get(downstream) != null
+                            ? routeLimits.get(downstream) : configuration.getHttpMaxPerRoute())
+                    .sum();
+            connectionManager.setMaxPerRoute(route, Math.min(maxConnections, configuration.getHttpMaxTotal()));
+
+            String downstreamTag = String.join(",", downstreams);
+            String hostTag = route.getTargetHost().toHostString();
+            registerPoolGauge(meterRegistry, connectionManager, route, "leased", downstreamTag, hostTag, PoolStats::getLeased);
+            registerPoolGauge(meterRegistry, connectionManager, route, "available", downstreamTag, hostTag, PoolStats::getAvailable);
+            registerPoolGauge(meterRegistry, connectionManager, route, "pending", downstreamTag, hostTag, PoolStats::getPending);
+            registerPoolGauge(meterRegistry, connectionManager, route, "max", downstreamTag, hostTag, PoolStats::getMax);
+            log.info("HTTP route {} for [{}] limited to {} connections", hostTag, downstreamTag,
+                    connectionManager.getMaxPerRoute(route));
+        });
+
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService referenceValidationExecutor(BankAccountServiceConfiguration configuration) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(configuration.getReferenceValidationPoolSize(), runnable -> {
+            Thread thread = new Thread(runnable, "reference-validation-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stores failed Kafka sends in the outbox off the producer I/O thread. The queue is bounded; records
+     * beyond it are lost, as they would be without an outbox.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService outboxStoreExecutor(BankAccountServiceConfiguration configuration) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(configuration.getOutboxStoreThreads(), configuration.getOutboxStoreThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(configuration.getOutboxStoreQueueCapacity()), runnable -> {
+            Thread thread = new Thread(runnable, "bankaccount-outbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void registerPoolGauge(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager connectionManager,
+                                          HttpRoute route, String name, String downstream, String host,
+                                          ToIntFunction<PoolStats> value) {
+        Gauge.builder(HTTP_POOL_METRIC_PREFIX + name, connectionManager,
+                        manager -> value.applyAsInt(manager.getStats(route)))
+                .tag("downstream", downstream)
+                .tag("host", host)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the route the client plans for requests to the host, with the default port of the scheme
+     * filled in so that it matches the route used when leasing connections.
+     */
+    private static HttpRoute toRoute(String host) {
+        if (!StringUtils.hasText(host)) {
+            return null;
+        }
+        URI uri = URI.create(host.trim());
+        if (uri.getHost() == null) {
+            return null;
+        }
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(secure ? "https" : "http", uri.getHost(), port), null, secure);
+    }
+}
@@ -1,50 +1,107 @@
 package org.egov.producer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.repository.OutboxRepository;
+import org.egov.web.models.BankAccount;
 import org.egov.web.models.BankAccountRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Publishes bank account requests for persistence. Records sent and failed are counted per topic
+ * ({@code bankaccount.kafka.records}), as is the number of records each push turned into
+ * ({@code bankaccount.kafka.publish.records}).
+ * <p>
+ * With the outbox enabled, a record that cannot be sent, or whose send fails later, is stored in the
+ * outbox and published by the {@link OutboxRelay} instead of being lost ({@code bankaccount.outbox.records}).
+ * Sends that fail later are stored on the {@code outboxStoreExecutor}, since their callbacks run on the
+ * producer I/O thread, which must not wait for the database.
+ */
 @Service
 @Slf4j
 public class BankAccountProducer {
 
+    private static final String RECORDS_METRIC = "bankaccount.kafka.records";
+    private static final String PUBLISH_RECORDS_METRIC = "bankaccount.kafka.publish.records";
+    static final String OUTBOX_METRIC = "bankaccount.outbox.records";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final BankAccountServiceConfiguration configuration;
+    private final MeterRegistry meterRegistry;
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService outboxExecutor;
 
     @Autowired
-    public BankAccountProducer(KafkaTemplate<String, Object> kafkaTemplate) {
+    public BankAccountProducer(KafkaTemplate<String, Object> kafkaTemplate,
+                               BankAccountServiceConfiguration configuration,
+                               MeterRegistry meterRegistry,
+                               OutboxRepository outboxRepository,
+                               ObjectMapper objectMapper,
+                               @Qualifier("outboxStoreExecutor") ExecutorService outboxExecutor) {
         this.kafkaTemplate = kafkaTemplate;
+        this.configuration = configuration;
+        this.meterRegistry = meterRegistry;
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.outboxExecutor = outboxExecutor;
     }
 
     /**
-     * Pushes bank account request to Kafka topic
+     * Pushes bank account request to Kafka topic. With keyed publishing enabled the request is split into
+     * one record per bank account, keyed by {@code tenantId|bankAccountId}: records spread over the
+     * partitions while all events of one account stay in order on the same partition. Each record still
+     * carries a {@link BankAccountRequest} envelope, so the persister reads it as before. Records of an
+     * account that still has records in the outbox are stored behind them rather than sent, so that they
+     * keep their order.
      *
      * @param topic   Kafka topic name
      * @param request Bank account request to be published
      */
     public void push(String topic, BankAccountRequest request) {
-        log.info("Publishing bank account request to topic: {}", topic);
-        
-        try {
-            CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, request);
-            
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.info("Successfully published bank account request to topic: {} with offset: {}",
-                            topic, result.getRecordMetadata().offset());
-                } else {
-                    log.error("Failed to publish bank account request to topic: {}", topic, ex);
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error while publishing to topic: {}", topic, e);
-            throw new RuntimeException("Failed to publish message to Kafka topic", e);
+        List<BankAccount> bankAccounts = request.getBankAccounts();
+        if (!Boolean.TRUE.equals(configuration.getKafkaKeyedPublishEnabled()) || CollectionUtils.isEmpty(bankAccounts)) {
+            log.info("Publishing bank account request to topic: {}", topic);
+            send(topic, null, request);
+            recordPublish(topic, 1);
+            return;
         }
+
+        log.info("Publishing {} bank accounts to topic: {}", bankAccounts.size(), topic);
+        List<String> keys = new ArrayList<>(bankAccounts.size());
+        for (BankAccount bankAccount : bankAccounts) {
+            keys.add(recordKey(bankAccount.getTenantId(), bankAccount.getId()));
+        }
+        Set<String> outboxKeys = findOutboxKeys(keys);
+
+        for (int i = 0; i < bankAccounts.size(); i++) {
+            BankAccountRequest record = BankAccountRequest.builder()
+                    .requestInfo(request.getRequestInfo())
+                    .bankAccounts(List.of(bankAccounts.get(i)))
+                    .build();
+            if (outboxKeys.contains(keys.get(i))) {
+                sendBehindOutbox(topic, keys.get(i), record);
+            } else {
+                send(topic, keys.get(i), record);
+            }
+        }
+        recordPublish(topic, bankAccounts.size());
     }
 
     /**
@@ -55,23 +112,8 @@ public class BankAccountProducer {
      */
     public void push(String topic, Object value) {
         log.info("Publishing message to topic: {}", topic);
-        
-        try {
-            CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, value);
-            
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.info("Successfully published message to topic: {} with offset: {}",
-                            topic, result.getRecordMetadata().offset());
-                } else {
-                    log.error("Failed to publish message to topic: {}", topic, ex);
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error while publishing to topic: {}", topic, e);
-            throw new RuntimeException("Failed to publish message to Kafka topic", e);
-        }
+        send(topic, null, value);
+        recordPublish(topic, 1);
     }
 
     /**
@@ -83,22 +125,131 @@ public class BankAccountProducer {
      */
     public void push(String topic, String key, Object value) {
         log.info("Publishing message with key: {} to topic: {}", key, topic);
-        
+        send(topic, key, value);
+        recordPublish(topic, 1);
+    }
+
+    public static String recordKey(String tenantId, String bankAccountId) {
+        return tenantId + "|" + bankAccountId;
+    }
+
+    private void send(String topic, String key, Object value) {
         try {
             CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, key, value);
-            
+
             future.whenComplete((result, ex) -> {
                 if (ex == null) {
-                    log.info("Successfully published message with key: {} to topic: {} with offset: {}",
-                            key, topic, result.getRecordMetadata().offset());
+                    recordCounter(topic, "sent").increment();
+                    log.debug("Successfully published message with key: {} to topic: {} partition: {} offset: {}",
+                            key, topic, result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
                 } else {
+                    recordCounter(topic, "failed").increment();
                     log.error("Failed to publish message with key: {} to topic: {}", key, topic, ex);
+                    saveToOutboxAsync(topic, key, value, ex);
                 }
             });
-            
+
         } catch (Exception e) {
+            recordCounter(topic, "failed").increment();
             log.error("Error while publishing message with key: {} to topic: {}", key, topic, e);
-            throw new RuntimeException("Failed to publish message to Kafka topic", e);
+            // The caller only sees the failure if the outbox cannot take the message either
+            if (!saveToOutbox(topic, key, value, e)) {
+                throw new RuntimeException("Failed to publish message to Kafka topic", e);
+            }
+        }
+    }
+
+    /**
+     * Stores the message in the outbox for the relay to publish. Returns false if the outbox is disabled.
+     */
+    private boolean saveToOutbox(String topic, String key, Object value, Throwable error) {
+        if (!Boolean.TRUE.equals(configuration.getOutboxEnabled())) {
+            return false;
+        }
+
+        storeInOutbox(topic, key, serialize(value), String.valueOf(error));
+        return true;
+    }
+
+    /**
+     * Hands the message of a failed send to the outbox executor. The message is serialized right away,
+     * as the caller may still change it.
+     */
+    private void saveToOutboxAsync(String topic, String key, Object value, Throwable error) {
+        if (!Boolean.TRUE.equals(configuration.getOutboxEnabled())) {
+            return;
+        }
+
+        try {
+            String payload = serialize(value);
+            outboxExecutor.execute(() -> {
+                try {
+                    storeInOutbox(topic, key, payload, String.valueOf(error));
+                } catch (Exception e) {
+                    meterRegistry.counter(OUTBOX_METRIC, "result", "lost").increment();
+                    log.error("Message with key: {} for topic: {} is lost, the outbox could not store it",
+                            key, topic, e);
+                }
+            });
+        } catch (RejectedExecutionException | IllegalStateException e) {
+            meterRegistry.counter(OUTBOX_METRIC, "result", "lost").increment();
+            log.error("Message with key: {} for topic: {} is lost, the outbox could not take it", key, topic, e);
         }
     }
+
+    private void storeInOutbox(String topic, String key, String payload, String error) {
+        outboxRepository.save(topic, key, payload, error);
+        meterRegistry.counter(OUTBOX_METRIC, "result", "stored").increment();
+        log.warn("Stored message with key: {} for topic: {} in the outbox", key, topic);
+    }
+
+    /**
+     * Returns the keys that still have records in the outbox. Their new records must be stored behind
+     * those instead of being sent directly, or they could reach the topic first.
+     */
+    private Set<String> findOutboxKeys(List<String> keys) {
+        if (!Boolean.TRUE.equals(configuration.getOutboxEnabled())) {
+            return Set.of();
+        }
+        try {
+            return outboxRepository.findKeys(keys);
+        } catch (Exception e) {
+            log.warn("Unable to look up outbox keys, publishing directly", e);
+            return Set.of();
+        }
+    }
+
+    private void sendBehindOutbox(String topic, String key, Object value) {
+        try {
+            storeInOutbox(topic, key, serialize(value), "Queued behind earlier outbox records of the key");
+        } catch (Exception e) {
+            log.error("Unable to queue message with key: {} for topic: {} in the outbox, publishing directly",
+                    key, topic, e);
+            send(topic, key, value);
+        }
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to serialize message for the outbox", e);
+        }
+    }
+
+    private Counter recordCounter(String topic, String result) {
+        return Counter.builder(RECORDS_METRIC)
+                .description("Records published to Kafka")
+                .tag("topic", topic)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void recordPublish(String topic, int records) {
+        DistributionSummary.builder(PUBLISH_RECORDS_METRIC)
+                .description("Records published per push")
+                .tag("topic", topic)
+                .register(meterRegistry)
+                .record(records);
+    }
 }
\ No newline at end of file
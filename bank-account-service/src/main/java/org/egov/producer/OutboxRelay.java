@@ -0,0 +1,141 @@
+package org.egov.producer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.repository.OutboxRepository;
+import org.egov.repository.OutboxRepository.OutboxRecord;
+import org.egov.repository.OutboxRepository.OutboxRetry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the outbox: due records are claimed a batch at a time, sent, and deleted once Kafka has
+ * acknowledged them. Records that fail again are retried after an exponential backoff. Relays of several
+ * instances share the work, as a claimed record is leased to one relay. The claim, and the delete or
+ * reschedule after the sends, are short transactions of their own, so no lock or connection is held while
+ * waiting for Kafka.
+ * <p>
+ * Records of one key are replayed in the order they were stored, one at a time: a record is only claimed
+ * once the earlier records of its key are delivered, so a record that keeps failing holds back the later
+ * ones. The producer stores new records of such keys in the outbox as well, see {@code findKeys}.
+ * <p>
+ * Delivery is at least once: a send that timed out may still have reached Kafka before it is retried.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final BankAccountServiceConfiguration configuration;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       BankAccountServiceConfiguration configuration,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.configuration = configuration;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${bank.account.outbox.relay.interval.ms:5000}",
+            initialDelayString = "${bank.account.outbox.relay.interval.ms:5000}")
+    public void relay() {
+        if (!Boolean.TRUE.equals(configuration.getOutboxEnabled())) {
+            return;
+        }
+
+        try {
+            // Keep draining while records go through; later records of a key only become claimable once
+            // the earlier ones are delivered
+            int delivered;
+            do {
+                delivered = relayBatch();
+            } while (delivered > 0);
+            outboxRepository.refreshState();
+        } catch (Exception e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    private int relayBatch() {
+        long now = System.currentTimeMillis();
+        List<OutboxRecord> records = outboxRepository.claimDueRecords(now, now + configuration.getOutboxRelayLeaseMs(),
+                configuration.getOutboxRelayBatchSize());
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        // Send the whole batch before waiting, so that it can share producer batches
+        List<CompletableFuture<?>> futures = new ArrayList<>(records.size());
+        for (OutboxRecord record : records) {
+            futures.add(send(record));
+        }
+
+        List<Long> deliveredIds = new ArrayList<>();
+        List<OutboxRetry> retries = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(configuration.getOutboxRelaySendTimeoutMs());
+        for (int i = 0; i < records.size(); i++) {
+            OutboxRecord record = records.get(i);
+            try {
+                futures.get(i).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                deliveredIds.add(record.id());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                retries.add(retry(record, now, e));
+            } catch (Exception e) {
+                retries.add(retry(record, now, e instanceof ExecutionException ? e.getCause() : e));
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.delete(deliveredIds);
+            outboxRepository.reschedule(retries);
+        });
+        meterRegistry.counter(BankAccountProducer.OUTBOX_METRIC, "result", "replayed").increment(deliveredIds.size());
+        meterRegistry.counter(BankAccountProducer.OUTBOX_METRIC, "result", "retried").increment(retries.size());
+
+        log.info("Outbox relay published {} records, {} left for retry", deliveredIds.size(), retries.size());
+        return deliveredIds.size();
+    }
+
+    private CompletableFuture<?> send(OutboxRecord record) {
+        try {
+            // Sent as a JSON tree so that the payload is not serialized a second time as a string
+            JsonNode payload = objectMapper.readTree(record.payload());
+            return kafkaTemplate.send(record.topic(), record.key(), payload);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private OutboxRetry retry(OutboxRecord record, long now, Throwable error) {
+        long backoff = configuration.getOutboxBackoffInitialMs() << Math.min(record.attempts(), 20);
+        long nextAttemptTime = now + Math.min(backoff, configuration.getOutboxBackoffMaxMs());
+        log.warn("Outbox record {} for topic {} failed attempt {}: {}", record.id(), record.topic(),
+                record.attempts() + 1, error != null ? error.getMessage() : null);
+        return new OutboxRetry(record.id(), nextAttemptTime, error != null ? String.valueOf(error) : null);
+    }
+}
@@ -1,11 +1,16 @@
 package org.egov.repository;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.egov.util.CursorUtil;
 import org.egov.web.models.BankAccountSearchCriteria;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -15,10 +20,19 @@ public class BankAccountQueryBuilder {
      * NOTE: All INSERT/UPDATE queries have been removed as they are now handled
      * by the DIGIT persister service via Kafka messaging.
      * This class now only contains search query building functionality.
+     *
+     * Searches run in two steps: a page query selects the IDs of one page of bank accounts, then the
+     * search query loads those accounts with all their details and branch identifiers.
+     *
+     * Exports read all matching accounts with their details in one ordered query instead.
+     *
+     * Page, count and export queries are built once per query shape, i.e. the set of criteria in use and the
+     * size of each IN list, and cached. IN lists are padded to the next power of two by repeating their
+     * last value, so the same few SQL texts are reused and hit the server-side prepared statement cache.
      */
 
-    // Base search query
-    private static final String BASE_SEARCH_QUERY = 
+    // Accounts joined with their details and branch identifiers
+    private static final String SEARCH_QUERY = 
         "SELECT ba.id as ba_id, ba.tenant_id as ba_tenant_id, ba.service_code, ba.reference_id, " +
         "ba.additional_details as ba_additional_details, ba.created_by as ba_created_by, " +
         "ba.last_modified_by as ba_last_modified_by, ba.created_time as ba_created_time, " +
@@ -32,101 +46,256 @@ public class BankAccountQueryBuilder {
         "bbi.additional_details as bbi_additional_details " +
         "FROM eg_bank_account ba " +
         "LEFT JOIN eg_bank_account_detail bad ON ba.id = bad.bank_account_id " +
-        "LEFT JOIN eg_bank_branch_identifier bbi ON bad.id = bbi.bank_account_detail_id ";
-
-    public String getBankAccountSearchQuery(BankAccountSearchCriteria criteria, List<Object> preparedStmtList) {
-        StringBuilder query = new StringBuilder(BASE_SEARCH_QUERY);
-        
-        addWhereClause(query, criteria, preparedStmtList);
-        addOrderByClause(query);
-        addPaginationClause(query, criteria, preparedStmtList);
-        
-        return query.toString();
+        "LEFT JOIN eg_bank_branch_identifier bbi ON bad.id = bbi.bank_account_detail_id";
+
+    // Base search query
+    private static final String BASE_SEARCH_QUERY = SEARCH_QUERY + " WHERE ba.id = ANY(?::varchar[])";
+
+    // One row per bank account, so that limits count accounts rather than joined rows
+    private static final String PAGE_QUERY = "SELECT ba.id, ba.created_time{totalCount} FROM eg_bank_account ba";
+
+    private static final String TOTAL_COUNT_COLUMN = ", COUNT(*) OVER () AS total_count";
+
+    private static final String COUNT_QUERY = "SELECT COUNT(*) FROM eg_bank_account ba";
+
+    private static final String SEEK_PREDICATE = "(ba.created_time, ba.id) < (?, ?)";
+
+    private static final String ORDER_BY = " ORDER BY ba.created_time DESC, ba.id DESC";
+
+    // Keeps the rows of an account, and of each of its details, adjacent
+    private static final String EXPORT_ORDER_BY = ORDER_BY + ", bad.id";
+
+    // Detail filters apply to a single detail of the account
+    private static final String DETAIL_EXISTS_QUERY =
+        "EXISTS (SELECT 1 FROM eg_bank_account_detail bad WHERE bad.bank_account_id = ba.id";
+
+    // Details whose holder name contains every searched word
+    private static final String NAME_TOKEN_QUERY =
+        "bad.id IN (SELECT nt.bank_account_detail_id FROM eg_bank_account_name_token nt " +
+        "WHERE nt.token_index IN ({tokens}) GROUP BY nt.bank_account_detail_id " +
+        "HAVING COUNT(DISTINCT nt.token_index) = ?)";
+
+    private static final String CACHE_NAME = "bankaccount.query.shape.cache";
+
+    // List criteria that are not set; a set but empty list matches nothing
+    private static final int ABSENT = -1;
+
+    private final Cache<QueryShape, String> queryCache;
+
+    @Autowired
+    public BankAccountQueryBuilder(MeterRegistry meterRegistry) {
+        this.queryCache = Caffeine.newBuilder()
+                .maximumSize(1024)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, queryCache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the IDs and created times of one page of bank accounts, newest first. In cursor mode the
+     * page starts after the cursor position instead of at the offset. With includeTotalCount each row
+     * also carries the number of matching accounts, which is only complete without a cursor.
+     */
+    public String getBankAccountPageQuery(BankAccountSearchCriteria criteria, List<Object> preparedStmtList,
+                                          boolean includeTotalCount) {
+        QueryShape shape = QueryShape.of(criteria, QueryType.PAGE, includeTotalCount);
+        String query = queryCache.get(shape, BankAccountQueryBuilder::buildQuery);
+
+        addWhereParameters(shape, criteria, preparedStmtList);
+        if (shape.cursor()) {
+            CursorUtil.Cursor cursor = CursorUtil.decode(criteria.getCursor());
+            preparedStmtList.add(cursor.getSortKey());
+            preparedStmtList.add(cursor.getId());
+        }
+        preparedStmtList.add(criteria.getLimit());
+        // The seek predicate already positions the page in cursor mode
+        if (!shape.cursor()) {
+            preparedStmtList.add(criteria.getOffset());
+        }
+        return query;
+    }
+
+    public String getBankAccountCountQuery(BankAccountSearchCriteria criteria, List<Object> preparedStmtList) {
+        QueryShape shape = QueryShape.of(criteria, QueryType.COUNT, false);
+        String query = queryCache.get(shape, BankAccountQueryBuilder::buildQuery);
+        addWhereParameters(shape, criteria, preparedStmtList);
+        return query;
+    }
+
+    /**
+     * Returns all matching bank accounts with their details and branch identifiers, newest first and
+     * without paging. The rows of an account are adjacent, so they can be consumed one account at a time.
+     */
+    public String getBankAccountExportQuery(BankAccountSearchCriteria criteria, List<Object> preparedStmtList) {
+        QueryShape shape = QueryShape.of(criteria, QueryType.EXPORT, false);
+        String query = queryCache.get(shape, BankAccountQueryBuilder::buildQuery);
+        addWhereParameters(shape, criteria, preparedStmtList);
+        return query;
     }
 
-    private void addWhereClause(StringBuilder query, BankAccountSearchCriteria criteria, List<Object> preparedStmtList) {
+    /**
+     * Loads the bank accounts with the given IDs with all their details and branch identifiers.
+     */
+    public String getBankAccountSearchQuery(List<String> ids, List<Object> preparedStmtList) {
+        preparedStmtList.add(ids.toArray(new String[0]));
+        return BASE_SEARCH_QUERY;
+    }
+
+    private static String buildQuery(QueryShape shape) {
+        StringBuilder query = new StringBuilder(switch (shape.type()) {
+            case PAGE -> PAGE_QUERY.replace("{totalCount}", shape.totalCount() ? TOTAL_COUNT_COLUMN : "");
+            case COUNT -> COUNT_QUERY;
+            case EXPORT -> SEARCH_QUERY;
+        });
         boolean isWhereAdded = false;
-        
-        if (StringUtils.hasText(criteria.getTenantId())) {
-            query.append(isWhereAdded ? " AND " : " WHERE ");
-            query.append("ba.tenant_id = ?");
+
+        if (shape.tenantId()) {
+            isWhereAdded = appendCondition(query, "ba.tenant_id = ?", isWhereAdded);
+        }
+        if (shape.ids() != ABSENT) {
+            isWhereAdded = appendCondition(query, inCondition("ba.id", shape.ids()), isWhereAdded);
+        }
+        if (shape.serviceCode()) {
+            isWhereAdded = appendCondition(query, "ba.service_code = ?", isWhereAdded);
+        }
+        if (shape.referenceIds() != ABSENT) {
+            isWhereAdded = appendCondition(query, inCondition("ba.reference_id", shape.referenceIds()), isWhereAdded);
+        }
+
+        if (shape.hasDetailConditions()) {
+            StringBuilder exists = new StringBuilder(DETAIL_EXISTS_QUERY);
+            // PII is encrypted, so names and account numbers are matched on their blind indexes
+            if (shape.nameTokens() != ABSENT) {
+                exists.append(" AND ").append(shape.nameTokens() == 0 ? "FALSE"
+                        : NAME_TOKEN_QUERY.replace("{tokens}", placeholders(shape.nameTokens())));
+            }
+            if (shape.accountNumbers() != ABSENT) {
+                exists.append(" AND ").append(inCondition("bad.account_number_index", shape.accountNumbers()));
+            }
+            if (shape.isActive()) {
+                exists.append(" AND bad.is_active = ?");
+            }
+            if (shape.isPrimary()) {
+                exists.append(" AND bad.is_primary = ?");
+            }
+            isWhereAdded = appendCondition(query, exists.append(")").toString(), isWhereAdded);
+        }
+
+        if (shape.type() == QueryType.EXPORT) {
+            query.append(EXPORT_ORDER_BY);
+        } else if (shape.type() == QueryType.PAGE) {
+            if (shape.cursor()) {
+                appendCondition(query, SEEK_PREDICATE, isWhereAdded);
+            }
+            query.append(ORDER_BY);
+            query.append(" LIMIT ?");
+            if (!shape.cursor()) {
+                query.append(" OFFSET ?");
+            }
+        }
+        return query.toString();
+    }
+
+    /**
+     * Adds the parameters of the where clause, in the order {@link #buildQuery} places them.
+     */
+    private static void addWhereParameters(QueryShape shape, BankAccountSearchCriteria criteria, List<Object> preparedStmtList) {
+        if (shape.tenantId()) {
             preparedStmtList.add(criteria.getTenantId());
-            isWhereAdded = true;
-        }
-        
-        if (!CollectionUtils.isEmpty(criteria.getIds())) {
-            query.append(isWhereAdded ? " AND " : " WHERE ");
-            query.append("ba.id IN (").append(createQuery(criteria.getIds())).append(")");
-            addToPreparedStatement(preparedStmtList, criteria.getIds());
-            isWhereAdded = true;
-        }
-        
-        if (StringUtils.hasText(criteria.getServiceCode())) {
-            query.append(isWhereAdded ? " AND " : " WHERE ");
-            query.append("ba.service_code = ?");
+        }
+        if (shape.ids() != ABSENT) {
+            addPadded(preparedStmtList, criteria.getIds(), shape.ids());
+        }
+        if (shape.serviceCode()) {
             preparedStmtList.add(criteria.getServiceCode());
-            isWhereAdded = true;
-        }
-        
-        if (!CollectionUtils.isEmpty(criteria.getReferenceId())) {
-            query.append(isWhereAdded ? " AND " : " WHERE ");
-            query.append("ba.reference_id IN (").append(createQuery(criteria.getReferenceId())).append(")");
-            addToPreparedStatement(preparedStmtList, criteria.getReferenceId());
-            isWhereAdded = true;
-        }
-        
-        if (StringUtils.hasText(criteria.getAccountHolderName())) {
-            query.append(isWhereAdded ? " AND " : " WHERE ");
-            query.append("bad.account_holder_name ILIKE ?");
-            preparedStmtList.add("%" + criteria.getAccountHolderName() + "%");
-            isWhereAdded = true;
-        }
-        
-        if (!CollectionUtils.isEmpty(criteria.getAccountNumber())) {
-            query.append(isWhereAdded ? " AND " : " WHERE ");
-            query.append("bad.account_number IN (").append(createQuery(criteria.getAccountNumber())).append(")");
-            addToPreparedStatement(preparedStmtList, criteria.getAccountNumber());
-            isWhereAdded = true;
-        }
-        
-        if (criteria.getIsActive() != null) {
-            query.append(isWhereAdded ? " AND " : " WHERE ");
-            query.append("bad.is_active = ?");
+        }
+        if (shape.referenceIds() != ABSENT) {
+            addPadded(preparedStmtList, criteria.getReferenceId(), shape.referenceIds());
+        }
+        if (shape.nameTokens() > 0) {
+            List<String> tokenIndexes = criteria.getAccountHolderNameTokenIndexes();
+            addPadded(preparedStmtList, tokenIndexes, shape.nameTokens());
+            // Padding repeats tokens, which COUNT(DISTINCT) ignores
+            preparedStmtList.add(tokenIndexes.size());
+        }
+        if (shape.accountNumbers() > 0) {
+            addPadded(preparedStmtList, criteria.getAccountNumberIndexes(), shape.accountNumbers());
+        }
+        if (shape.isActive()) {
             preparedStmtList.add(criteria.getIsActive());
-            isWhereAdded = true;
         }
-        
-        if (criteria.getIsPrimary() != null) {
-            query.append(isWhereAdded ? " AND " : " WHERE ");
-            query.append("bad.is_primary = ?");
+        if (shape.isPrimary()) {
             preparedStmtList.add(criteria.getIsPrimary());
         }
     }
 
-    private void addOrderByClause(StringBuilder query) {
-        query.append(" ORDER BY ba.created_time DESC");
+    private static boolean appendCondition(StringBuilder query, String condition, boolean isWhereAdded) {
+        query.append(isWhereAdded ? " AND " : " WHERE ").append(condition);
+        return true;
     }
 
-    private void addPaginationClause(StringBuilder query, BankAccountSearchCriteria criteria, List<Object> preparedStmtList) {
-        query.append(" LIMIT ?");
-        preparedStmtList.add(criteria.getLimit());
-        
-        query.append(" OFFSET ?");
-        preparedStmtList.add(criteria.getOffset());
+    private static String inCondition(String column, int size) {
+        return size == 0 ? "FALSE" : column + " IN (" + placeholders(size) + ")";
     }
 
-    private String createQuery(List<String> list) {
+    private static String placeholders(int size) {
         StringBuilder builder = new StringBuilder();
-        int length = list.size();
-        for (int i = 0; i < length; i++) {
-            builder.append(" ?");
-            if (i != length - 1)
-                builder.append(",");
+        for (int i = 0; i < size; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
         }
         return builder.toString();
     }
 
-    private void addToPreparedStatement(List<Object> preparedStmtList, List<String> list) {
-        preparedStmtList.addAll(list);
+    private static void addPadded(List<Object> preparedStmtList, List<String> values, int size) {
+        preparedStmtList.addAll(values);
+        for (int i = values.size(); i < size; i++) {
+            preparedStmtList.add(values.get(values.size() - 1));
+        }
+    }
+
+    /**
+     * Rounds a list size up to the next power of two; empty lists stay 0 and absent lists ABSENT.
+     */
+    private static int bucket(List<String> values) {
+        if (values == null) {
+            return ABSENT;
+        }
+        int size = values.size();
+        if (size <= 1) {
+            return size;
+        }
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private enum QueryType {
+        PAGE, COUNT, EXPORT
+    }
+
+    /**
+     * Everything the SQL text of a page, count or export query depends on.
+     */
+    private record QueryShape(QueryType type, boolean totalCount, boolean tenantId, int ids, boolean serviceCode,
+                              int referenceIds, int nameTokens, int accountNumbers, boolean isActive,
+                              boolean isPrimary, boolean cursor) {
+
+        static QueryShape of(BankAccountSearchCriteria criteria, QueryType type, boolean totalCount) {
+            return new QueryShape(type, totalCount,
+                    StringUtils.hasText(criteria.getTenantId()),
+                    CollectionUtils.isEmpty(criteria.getIds()) ? ABSENT : bucket(criteria.getIds()),
+                    StringUtils.hasText(criteria.getServiceCode()),
+                    CollectionUtils.isEmpty(criteria.getReferenceId()) ? ABSENT : bucket(criteria.getReferenceId()),
+                    // Name and account number filters are set by their plain inputs and match on their indexes
+                    StringUtils.hasText(criteria.getAccountHolderName())
+                            ? Math.max(bucket(criteria.getAccountHolderNameTokenIndexes()), 0) : ABSENT,
+                    CollectionUtils.isEmpty(criteria.getAccountNumber())
+                            ? ABSENT : Math.max(bucket(criteria.getAccountNumberIndexes()), 0),
+                    criteria.getIsActive() != null,
+                    criteria.getIsPrimary() != null,
+                    type == QueryType.PAGE && StringUtils.hasText(criteria.getCursor()));
+        }
+
+        boolean hasDetailConditions() {
+            return nameTokens != ABSENT || accountNumbers != ABSENT || isActive || isPrimary;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,27 @@
 package org.egov.repository;
 
 import lombok.extern.slf4j.Slf4j;
+import org.egov.config.BankAccountServiceConfiguration;
 import org.egov.repository.rowmapper.BankAccountRowMapper;
 import org.egov.web.models.BankAccount;
 import org.egov.web.models.BankAccountSearchCriteria;
+import org.egov.web.models.BankAccountSearchResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Repository
 @Slf4j
@@ -18,14 +30,21 @@ public class BankAccountRepository {
     private final JdbcTemplate jdbcTemplate;
     private final BankAccountQueryBuilder queryBuilder;
     private final BankAccountRowMapper rowMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BankAccountServiceConfiguration configuration;
 
     @Autowired
     public BankAccountRepository(JdbcTemplate jdbcTemplate,
                                 BankAccountQueryBuilder queryBuilder,
-                                BankAccountRowMapper rowMapper) {
+                                BankAccountRowMapper rowMapper,
+                                PlatformTransactionManager transactionManager,
+                                BankAccountServiceConfiguration configuration) {
         this.jdbcTemplate = jdbcTemplate;
         this.queryBuilder = queryBuilder;
         this.rowMapper = rowMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.configuration = configuration;
     }
 
     /**
@@ -34,21 +53,100 @@ public class BankAccountRepository {
      */
 
     /**
-     * Searches bank accounts based on criteria
+     * Searches bank accounts based on criteria. One page of account IDs is selected first and the
+     * accounts are then loaded with all their details, so a page always holds whole accounts.
      */
-    public List<BankAccount> getBankAccounts(BankAccountSearchCriteria criteria) {
+    public BankAccountSearchResult searchBankAccounts(BankAccountSearchCriteria criteria) {
         log.info("Searching bank accounts for tenant: {}", criteria.getTenantId());
-        
-        String query = queryBuilder.getBankAccountSearchQuery(criteria, new ArrayList<>());
+
+        boolean includeTotalCount = Boolean.TRUE.equals(criteria.getIncludeTotalCount());
+        // The seek predicate hides earlier rows from a window count, so cursor pages count separately
+        boolean windowCount = includeTotalCount && !StringUtils.hasText(criteria.getCursor());
+
         List<Object> preparedStatementValues = new ArrayList<>();
-        query = queryBuilder.getBankAccountSearchQuery(criteria, preparedStatementValues);
-        
-        log.debug("Executing search query: {} with params: {}", query, preparedStatementValues);
-        
-        List<BankAccount> bankAccounts = jdbcTemplate.query(query, 
-                preparedStatementValues.toArray(), rowMapper);
-        
+        String query = queryBuilder.getBankAccountPageQuery(criteria, preparedStatementValues, windowCount);
+        log.debug("Executing page query: {} with params: {}", query, preparedStatementValues);
+
+        List<String> ids = new ArrayList<>();
+        AtomicReference<Integer> totalCount = new AtomicReference<>();
+        jdbcTemplate.query(query, rs -> {
+            ids.add(rs.getString("id"));
+            if (windowCount) {
+                totalCount.set(rs.getInt("total_count"));
+            }
+        }, preparedStatementValues.toArray());
+
+        if (includeTotalCount && totalCount.get() == null) {
+            // An empty first page needs no count; an empty page past the end still has earlier matches
+            boolean firstPage = !StringUtils.hasText(criteria.getCursor())
+                    && (criteria.getOffset() == null || criteria.getOffset() == 0);
+            totalCount.set(firstPage ? 0 : getBankAccountCount(criteria));
+        }
+
+        List<BankAccount> bankAccounts = getBankAccountsByIds(ids);
         log.info("Found {} bank accounts matching search criteria", bankAccounts.size());
-        return bankAccounts;
+
+        return BankAccountSearchResult.builder()
+                .bankAccounts(bankAccounts)
+                .totalCount(totalCount.get())
+                .build();
+    }
+
+    public Integer getBankAccountCount(BankAccountSearchCriteria criteria) {
+        List<Object> preparedStatementValues = new ArrayList<>();
+        String query = queryBuilder.getBankAccountCountQuery(criteria, preparedStatementValues);
+        return jdbcTemplate.queryForObject(query, Integer.class, preparedStatementValues.toArray());
+    }
+
+    /**
+     * Streams every bank account matching the criteria to {@code consumer}, one account at a time and
+     * still encrypted. Paging fields are ignored. The query runs in a read-only transaction so that
+     * PostgreSQL uses a cursor and fetches {@code bank.account.export.fetch.size} rows per round trip
+     * instead of loading the whole result. Returns the number of accounts streamed.
+     */
+    public int exportBankAccounts(BankAccountSearchCriteria criteria, Consumer<BankAccount> consumer) {
+        List<Object> preparedStatementValues = new ArrayList<>();
+        String query = queryBuilder.getBankAccountExportQuery(criteria, preparedStatementValues);
+        log.debug("Executing export query: {} with params: {}", query, preparedStatementValues);
+
+        Integer count = readOnlyTransaction.execute(status -> {
+            BankAccountRowMapper.BankAccountStreamer streamer = rowMapper.streamer(consumer);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(configuration.getExportFetchSize());
+                new ArgumentPreparedStatementSetter(preparedStatementValues.toArray()).setValues(statement);
+                return statement;
+            }, streamer);
+            return streamer.finish();
+        });
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Loads the bank accounts with the given IDs, in the order of {@code ids}.
+     */
+    public List<BankAccount> getBankAccountsByIds(List<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Object> preparedStatementValues = new ArrayList<>();
+        String query = queryBuilder.getBankAccountSearchQuery(ids, preparedStatementValues);
+        List<BankAccount> bankAccounts = jdbcTemplate.query(query, rowMapper, preparedStatementValues.toArray());
+
+        Map<String, BankAccount> bankAccountsById = new HashMap<>();
+        for (BankAccount bankAccount : bankAccounts) {
+            bankAccountsById.put(bankAccount.getId(), bankAccount);
+        }
+
+        List<BankAccount> ordered = new ArrayList<>(bankAccounts.size());
+        for (String id : ids) {
+            BankAccount bankAccount = bankAccountsById.remove(id);
+            if (bankAccount != null) {
+                ordered.add(bankAccount);
+            }
+        }
+        return ordered;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package org.egov.repository;
+
+import org.egov.web.models.BankAccountDetails;
+import org.egov.web.models.BankAccountNameToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and fills the blind indexes of bank account details stored before indexes existed. Like the
+ * outbox these rows are written directly rather than through the persister, since they only complete
+ * rows that are already persisted.
+ */
+@Repository
+public class BlindIndexRepository {
+
+    // Details keep the tenant of their account, which the indexes are scoped to
+    private static final String UNINDEXED_QUERY = "SELECT bad.id, ba.tenant_id, bad.account_number, bad.account_holder_name"
+            + " FROM eg_bank_account_detail bad JOIN eg_bank_account ba ON ba.id = bad.bank_account_id"
+            + " WHERE bad.account_number_index IS NULL AND bad.id > ? ORDER BY bad.id LIMIT ?"
+            + " FOR UPDATE OF bad SKIP LOCKED";
+
+    private static final String UPDATE_INDEX_QUERY = "UPDATE eg_bank_account_detail SET account_number_index = ?"
+            + " WHERE id = ? AND account_number_index IS NULL";
+
+    private static final String DELETE_TOKENS_QUERY =
+            "DELETE FROM eg_bank_account_name_token WHERE bank_account_detail_id = ANY(?::varchar[])";
+
+    private static final String INSERT_TOKEN_QUERY =
+            "INSERT INTO eg_bank_account_name_token (id, bank_account_detail_id, token_index) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BlindIndexRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks and returns up to {@code limit} details without indexes whose ID follows {@code afterId},
+     * with their stored (encrypted) values. Must run in a transaction, which holds the locks until the
+     * indexes are saved.
+     */
+    public List<UnindexedDetail> lockUnindexedDetails(String afterId, int limit) {
+        return jdbcTemplate.query(UNINDEXED_QUERY, (rs, rowNum) -> new UnindexedDetail(rs.getString("id"),
+                rs.getString("tenant_id"), rs.getString("account_number"), rs.getString("account_holder_name")),
+                afterId, limit);
+    }
+
+    /**
+     * Stores the account number index and replaces the name tokens of each detail.
+     */
+    public void saveIndexes(List<BankAccountDetails> details) {
+        if (details.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> indexArgs = new ArrayList<>(details.size());
+        List<Object[]> tokenArgs = new ArrayList<>();
+        String[] detailIds = new String[details.size()];
+        for (int i = 0; i < details.size(); i++) {
+            BankAccountDetails detail = details.get(i);
+            detailIds[i] = detail.getId();
+            indexArgs.add(new Object[]{detail.getAccountNumberIndex(), detail.getId()});
+            if (detail.getAccountHolderNameTokens() != null) {
+                for (BankAccountNameToken token : detail.getAccountHolderNameTokens()) {
+                    tokenArgs.add(new Object[]{token.getId(), detail.getId(), token.getTokenIndex()});
+                }
+            }
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_INDEX_QUERY, indexArgs);
+        jdbcTemplate.update(DELETE_TOKENS_QUERY, (Object) detailIds);
+        jdbcTemplate.batchUpdate(INSERT_TOKEN_QUERY, tokenArgs);
+    }
+
+    public record UnindexedDetail(String id, String tenantId, String accountNumber, String accountHolderName) {
+    }
+}
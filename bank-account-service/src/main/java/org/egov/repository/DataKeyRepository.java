@@ -0,0 +1,66 @@
+package org.egov.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Stores the wrapped per-tenant data keys of the local encryption engine. Unlike bank accounts these rows
+ * are written directly, since a key must exist before the first value of a tenant can be encrypted.
+ */
+@Repository
+@Slf4j
+public class DataKeyRepository {
+
+    private static final String LATEST_KEY_QUERY = "SELECT tenant_id, key_version, wrapped_key, master_key_alias"
+            + " FROM eg_bank_account_data_key WHERE tenant_id = ? ORDER BY key_version DESC LIMIT 1";
+
+    private static final String KEY_QUERY = "SELECT tenant_id, key_version, wrapped_key, master_key_alias"
+            + " FROM eg_bank_account_data_key WHERE tenant_id = ? AND key_version = ?";
+
+    private static final String INSERT_KEY_QUERY = "INSERT INTO eg_bank_account_data_key"
+            + " (tenant_id, key_version, wrapped_key, master_key_alias, created_time) VALUES (?, ?, ?, ?, ?)"
+            + " ON CONFLICT (tenant_id, key_version) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public DataKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public WrappedDataKey getLatestKey(String tenantId) {
+        List<WrappedDataKey> keys = jdbcTemplate.query(LATEST_KEY_QUERY, (rs, rowNum) -> mapKey(rs), tenantId);
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    public WrappedDataKey getKey(String tenantId, int keyVersion) {
+        List<WrappedDataKey> keys = jdbcTemplate.query(KEY_QUERY, (rs, rowNum) -> mapKey(rs), tenantId, keyVersion);
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    /**
+     * Inserts the key unless the version already exists, e.g. because another instance created it first.
+     * Returns whether this key was stored.
+     */
+    public boolean insertKey(WrappedDataKey key) {
+        int inserted = jdbcTemplate.update(INSERT_KEY_QUERY, key.tenantId(), key.keyVersion(), key.wrappedKey(),
+                key.masterKeyAlias(), System.currentTimeMillis());
+        log.info("Data key version {} for tenant {} {}", key.keyVersion(), key.tenantId(),
+                inserted > 0 ? "created" : "already exists");
+        return inserted > 0;
+    }
+
+    private static WrappedDataKey mapKey(ResultSet rs) throws SQLException {
+        return new WrappedDataKey(rs.getString("tenant_id"), rs.getInt("key_version"),
+                rs.getString("wrapped_key"), rs.getString("master_key_alias"));
+    }
+
+    public record WrappedDataKey(String tenantId, int keyVersion, String wrappedKey, String masterKeyAlias) {
+    }
+}
@@ -0,0 +1,239 @@
+package org.egov.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.util.BlindIndexUtil;
+import org.egov.web.models.BankAccount;
+import org.egov.web.models.BankAccountDetails;
+import org.egov.web.models.BankAccountSearchCriteria;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bank accounts accepted by this instance whose create has not been persisted yet, keyed by (tenantId,
+ * bankAccountId) and held decrypted, as returned to the caller. Search merges them into what the
+ * database returns, so a client reads its own writes right after a create. Entries are evicted when the
+ * database returns the account and in any case after the configured TTL.
+ * <p>
+ * Keys are indexed by tenant, so a search only looks at the pending accounts of its tenant, and the blind
+ * indexes of each detail are computed once when the account is added.
+ */
+@Component
+@Slf4j
+public class PendingBankAccounts {
+
+    private static final String CACHE_NAME = "bankaccount.pending.cache";
+
+    // Order of the search: newest first, then by descending ID
+    private static final Comparator<BankAccount> SEARCH_ORDER = Comparator
+            .comparingLong(PendingBankAccounts::createdTime)
+            .thenComparing(BankAccount::getId)
+            .reversed();
+
+    private final BankAccountServiceConfiguration configuration;
+    private final BlindIndexUtil blindIndexUtil;
+    private final Cache<String, PendingAccount> cache;
+    private final Map<String, Set<String>> keysByTenant = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PendingBankAccounts(BankAccountServiceConfiguration configuration, BlindIndexUtil blindIndexUtil,
+                               MeterRegistry meterRegistry) {
+        this.configuration = configuration;
+        this.blindIndexUtil = blindIndexUtil;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(configuration.getPendingMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(configuration.getPendingTtlSeconds()))
+                .<String, PendingAccount>removalListener((key, pending, cause) -> {
+                    // A replaced entry is still pending under the same key
+                    if (key != null && pending != null && cause != RemovalCause.REPLACED) {
+                        unindex(pending.bankAccount().getTenantId(), key);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public void add(List<BankAccount> bankAccounts) {
+        if (!isEnabled() || bankAccounts == null) {
+            return;
+        }
+        for (BankAccount bankAccount : bankAccounts) {
+            String key = buildKey(bankAccount.getTenantId(), bankAccount.getId());
+            keysByTenant.compute(bankAccount.getTenantId(), (tenantId, keys) -> {
+                Set<String> tenantKeys = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                tenantKeys.add(key);
+                return tenantKeys;
+            });
+            cache.put(key, new PendingAccount(bankAccount, indexDetails(bankAccount)));
+        }
+    }
+
+    public void evict(List<BankAccount> bankAccounts) {
+        if (bankAccounts == null || cache.estimatedSize() == 0) {
+            return;
+        }
+        for (BankAccount bankAccount : bankAccounts) {
+            cache.invalidate(buildKey(bankAccount.getTenantId(), bankAccount.getId()));
+        }
+    }
+
+    /**
+     * Merges the pending bank accounts matching the criteria into the first page of a search read from
+     * the database and returns how many the page now holds. Pending accounts the database already
+     * returned are evicted. Name and account number filters must be indexed first, as for the database
+     * search.
+     * <p>
+     * Pending accounts take their place among the rows in the search order and the page is cut back to
+     * the limit; the next cursor must then be taken from the merged page. Pending accounts that sort after
+     * a full page are left out: they belong to a later page, where the database returns them once
+     * persisted, so no account shows up twice.
+     */
+    public int merge(BankAccountSearchCriteria criteria, List<BankAccount> bankAccounts) {
+        if (!isEnabled() || cache.estimatedSize() == 0) {
+            return 0;
+        }
+
+        evict(bankAccounts);
+        boolean firstPage = !StringUtils.hasText(criteria.getCursor())
+                && (criteria.getOffset() == null || criteria.getOffset() == 0);
+        if (!firstPage) {
+            return 0;
+        }
+
+        List<BankAccount> pending = findMatching(criteria);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        int limit = criteria.getLimit();
+        if (bankAccounts.size() >= limit) {
+            BankAccount last = bankAccounts.get(bankAccounts.size() - 1);
+            pending.removeIf(bankAccount -> SEARCH_ORDER.compare(bankAccount, last) > 0);
+        }
+
+        Set<BankAccount> merged = Collections.newSetFromMap(new IdentityHashMap<>());
+        merged.addAll(pending);
+        bankAccounts.addAll(pending);
+        bankAccounts.sort(SEARCH_ORDER);
+        int added = pending.size();
+        while (bankAccounts.size() > limit) {
+            if (merged.contains(bankAccounts.remove(bankAccounts.size() - 1))) {
+                added--;
+            }
+        }
+
+        log.debug("Merged {} pending bank accounts into the search result", added);
+        return added;
+    }
+
+    private List<BankAccount> findMatching(BankAccountSearchCriteria criteria) {
+        Collection<String> keys = StringUtils.hasText(criteria.getTenantId())
+                ? keysByTenant.getOrDefault(criteria.getTenantId(), Set.of())
+                : cache.asMap().keySet();
+
+        List<BankAccount> pending = new ArrayList<>();
+        for (String key : keys) {
+            PendingAccount account = cache.getIfPresent(key);
+            if (account != null && matches(criteria, account)) {
+                pending.add(account.bankAccount());
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Applies the filters of the search query to an account. As in the query, detail filters must all
+     * hold for the same detail.
+     */
+    private static boolean matches(BankAccountSearchCriteria criteria, PendingAccount pending) {
+        BankAccount bankAccount = pending.bankAccount();
+        if ((StringUtils.hasText(criteria.getTenantId()) && !criteria.getTenantId().equals(bankAccount.getTenantId()))
+                || (!CollectionUtils.isEmpty(criteria.getIds()) && !criteria.getIds().contains(bankAccount.getId()))
+                || (StringUtils.hasText(criteria.getServiceCode()) && !criteria.getServiceCode().equals(bankAccount.getServiceCode()))
+                || (!CollectionUtils.isEmpty(criteria.getReferenceId())
+                        && !criteria.getReferenceId().contains(bankAccount.getReferenceId()))) {
+            return false;
+        }
+
+        boolean nameFilter = StringUtils.hasText(criteria.getAccountHolderName());
+        boolean accountNumberFilter = !CollectionUtils.isEmpty(criteria.getAccountNumber());
+        if (!nameFilter && !accountNumberFilter && criteria.getIsActive() == null && criteria.getIsPrimary() == null) {
+            return true;
+        }
+
+        for (IndexedDetail indexed : pending.details()) {
+            BankAccountDetails detail = indexed.detail();
+            if ((criteria.getIsActive() == null || criteria.getIsActive().equals(detail.getIsActive()))
+                    && (criteria.getIsPrimary() == null || criteria.getIsPrimary().equals(detail.getIsPrimary()))
+                    && (!accountNumberFilter || (criteria.getAccountNumberIndexes() != null
+                            && criteria.getAccountNumberIndexes().contains(indexed.accountNumberIndex())))
+                    && (!nameFilter || (!CollectionUtils.isEmpty(criteria.getAccountHolderNameTokenIndexes())
+                            && indexed.nameTokenIndexes().containsAll(criteria.getAccountHolderNameTokenIndexes())))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<IndexedDetail> indexDetails(BankAccount bankAccount) {
+        if (bankAccount.getBankAccountDetails() == null) {
+            return List.of();
+        }
+        List<IndexedDetail> details = new ArrayList<>(bankAccount.getBankAccountDetails().size());
+        for (BankAccountDetails detail : bankAccount.getBankAccountDetails()) {
+            String tenantId = bankAccount.getTenantId();
+            details.add(new IndexedDetail(detail,
+                    blindIndexUtil.accountNumberIndex(tenantId, detail.getAccountNumber()),
+                    detail.getAccountHolderName() != null
+                            ? new HashSet<>(blindIndexUtil.nameTokenIndexes(tenantId, detail.getAccountHolderName()))
+                            : Set.of()));
+        }
+        return details;
+    }
+
+    private void unindex(String tenantId, String key) {
+        keysByTenant.computeIfPresent(tenantId, (tenant, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static long createdTime(BankAccount bankAccount) {
+        return bankAccount.getAuditDetails() != null && bankAccount.getAuditDetails().getCreatedTime() != null
+                ? bankAccount.getAuditDetails().getCreatedTime() : 0L;
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(configuration.getPendingEnabled());
+    }
+
+    private static String buildKey(String tenantId, String bankAccountId) {
+        return tenantId + "|" + bankAccountId;
+    }
+
+    private record PendingAccount(BankAccount bankAccount, List<IndexedDetail> details) {
+    }
+
+    private record IndexedDetail(BankAccountDetails detail, String accountNumberIndex, Set<String> nameTokenIndexes) {
+    }
+}
@@ -1,30 +1,39 @@
 package org.egov.repository.rowmapper;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.common.contract.models.AuditDetails;
+import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.util.LazyJsonMap;
 import org.egov.web.models.BankAccount;
 import org.egov.web.models.BankAccountDetails;
 import org.egov.web.models.BankBranchIdentifier;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Component
 @Slf4j
 public class BankAccountRowMapper implements ResultSetExtractor<List<BankAccount>> {
 
-    private final ObjectMapper objectMapper;
+    private final BankAccountServiceConfiguration configuration;
+    private final ObjectReader valueReader;
+    private final ObjectReader mapReader;
 
     @Autowired
-    public BankAccountRowMapper(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public BankAccountRowMapper(ObjectMapper objectMapper, BankAccountServiceConfiguration configuration) {
+        this.configuration = configuration;
+        this.valueReader = objectMapper.readerFor(Object.class);
+        this.mapReader = objectMapper.readerFor(new TypeReference<LinkedHashMap<String, Object>>() {});
     }
 
     @Override
@@ -65,6 +74,15 @@ public class BankAccountRowMapper implements ResultSetExtractor<List<BankAccount
         return new ArrayList<>(bankAccountMap.values());
     }
 
+    /**
+     * Returns a row handler for results ordered by account, e.g. an export, that builds one account at a
+     * time and hands it to {@code consumer} once its rows have been read, instead of collecting the whole
+     * result.
+     */
+    public BankAccountStreamer streamer(Consumer<BankAccount> consumer) {
+        return new BankAccountStreamer(consumer);
+    }
+
     private BankAccount buildBankAccount(ResultSet rs) throws SQLException {
         AuditDetails auditDetails = AuditDetails.builder()
                 .createdBy(rs.getString("ba_created_by"))
@@ -112,17 +130,78 @@ public class BankAccountRowMapper implements ResultSetExtractor<List<BankAccount
                 .build();
     }
 
+    /**
+     * Reads a JSONB column straight into its value. With lazy JSON enabled, JSON objects are kept raw in
+     * a {@link LazyJsonMap} and only parsed if read.
+     */
     private Object getAdditionalDetail(String additionalDetailsString) {
         if (additionalDetailsString == null || additionalDetailsString.isEmpty()) {
             return null;
         }
+        if (Boolean.TRUE.equals(configuration.getSearchLazyJsonEnabled())
+                && additionalDetailsString.charAt(0) == '{') {
+            return new LazyJsonMap(additionalDetailsString, mapReader);
+        }
 
         try {
-            JsonNode jsonNode = objectMapper.readTree(additionalDetailsString);
-            return objectMapper.convertValue(jsonNode, Object.class);
+            return valueReader.readValue(additionalDetailsString);
         } catch (Exception e) {
             log.warn("Error parsing additional details: {}", additionalDetailsString, e);
             return null;
         }
     }
-}
\ No newline at end of file
+
+    public class BankAccountStreamer implements RowCallbackHandler {
+
+        private final Consumer<BankAccount> consumer;
+        private BankAccount current;
+        private BankAccountDetails currentDetail;
+        private int count;
+
+        private BankAccountStreamer(Consumer<BankAccount> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String bankAccountId = rs.getString("ba_id");
+            if (current == null || !current.getId().equals(bankAccountId)) {
+                emit();
+                current = buildBankAccount(rs);
+            }
+
+            String detailId = rs.getString("bad_id");
+            if (detailId == null) {
+                return;
+            }
+            if (currentDetail == null || !currentDetail.getId().equals(detailId)) {
+                currentDetail = buildBankAccountDetails(rs);
+                if (current.getBankAccountDetails() == null) {
+                    current.setBankAccountDetails(new ArrayList<>());
+                }
+                current.getBankAccountDetails().add(currentDetail);
+            }
+            if (rs.getString("bbi_id") != null) {
+                currentDetail.setBankBranchIdentifier(buildBankBranchIdentifier(rs));
+            }
+        }
+
+        /**
+         * Hands over the last account; call once the query has completed. Returns the number of accounts
+         * streamed.
+         */
+        public int finish() {
+            emit();
+            return count;
+        }
+
+        private void emit() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+                currentDetail = null;
+                count++;
+            }
+        }
+    }
+}
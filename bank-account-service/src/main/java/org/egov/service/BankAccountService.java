@@ -1,15 +1,26 @@
 package org.egov.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.common.contract.models.RequestInfoWrapper;
 import org.egov.config.BankAccountServiceConfiguration;
 import org.egov.producer.BankAccountProducer;
 import org.egov.repository.BankAccountRepository;
+import org.egov.repository.PendingBankAccounts;
+import org.egov.util.CursorUtil;
 import org.egov.validator.BankAccountValidator;
 import org.egov.web.models.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -22,6 +33,8 @@ public class BankAccountService {
     private final EncryptionService encryptionService;
     private final BankAccountRepository repository;
     private final BankAccountProducer producer;
+    private final ObjectMapper objectMapper;
+    private final PendingBankAccounts pendingBankAccounts;
 
     @Autowired
     public BankAccountService(BankAccountServiceConfiguration configuration,
@@ -29,13 +42,17 @@ public class BankAccountService {
                              EnrichmentService enrichmentService,
                              EncryptionService encryptionService,
                              BankAccountRepository repository,
-                             BankAccountProducer producer) {
+                             BankAccountProducer producer,
+                             ObjectMapper objectMapper,
+                             PendingBankAccounts pendingBankAccounts) {
         this.configuration = configuration;
         this.validator = validator;
         this.enrichmentService = enrichmentService;
         this.encryptionService = encryptionService;
         this.repository = repository;
         this.producer = producer;
+        this.objectMapper = objectMapper;
+        this.pendingBankAccounts = pendingBankAccounts;
     }
 
     /**
@@ -64,6 +81,7 @@ public class BankAccountService {
 
         // Publish to Kafka for async persistence via persister service
         producer.push(configuration.getSaveBankAccountTopic(), request);
+        pendingBankAccounts.add(responseAccounts);
 
         log.info("Bank account creation request published to Kafka for {} accounts", 
                 request.getBankAccounts().size());
@@ -76,9 +94,9 @@ public class BankAccountService {
      * 
      * @param requestInfoWrapper RequestInfo wrapper
      * @param searchCriteria Search criteria for bank accounts
-     * @return List of matching bank accounts
+     * @return Page of matching bank accounts with its paging details
      */
-    public List<BankAccount> searchBankAccount(RequestInfoWrapper requestInfoWrapper, 
+    public BankAccountSearchResult searchBankAccount(RequestInfoWrapper requestInfoWrapper, 
                                                BankAccountSearchCriteria searchCriteria) {
         log.info("Searching bank accounts for tenant: {}", searchCriteria.getTenantId());
 
@@ -88,20 +106,89 @@ public class BankAccountService {
         // Apply default pagination if not provided
         enrichmentService.enrichSearchRequest(searchCriteria);
 
-        // Encrypt search criteria if needed
-        encryptionService.encryptSearchCriteria(searchCriteria, requestInfoWrapper.getRequestInfo());
+        // Search encrypted PII through its blind indexes
+        encryptionService.indexSearchCriteria(searchCriteria);
 
         // Search from database
-        List<BankAccount> bankAccounts = repository.getBankAccounts(searchCriteria);
+        BankAccountSearchResult result = repository.searchBankAccounts(searchCriteria);
+        List<BankAccount> bankAccounts = result.getBankAccounts();
 
         // Decrypt the response data
         if (!bankAccounts.isEmpty()) {
             encryptionService.decryptBankAccountData(bankAccounts, requestInfoWrapper.getRequestInfo());
         }
 
+        // Creates accepted but not persisted yet; the cursor follows the merged page
+        int pending = pendingBankAccounts.merge(searchCriteria, bankAccounts);
+        if (pending > 0 && result.getTotalCount() != null) {
+            result.setTotalCount(result.getTotalCount() + pending);
+        }
+        result.setNextCursor(getNextCursor(searchCriteria, bankAccounts));
+
         log.info("Found {} bank accounts matching search criteria", bankAccounts.size());
         
-        return bankAccounts;
+        return result;
+    }
+
+    /**
+     * Validates the export request and returns a body that writes every matching bank account as one
+     * JSON line (NDJSON). Accounts are read from the database as a stream and decrypted and written in
+     * batches of {@code bank.account.export.batch.size}, so memory use does not depend on the number of
+     * accounts exported. Limit, offset and cursor are ignored.
+     */
+    public StreamingResponseBody exportBankAccounts(RequestInfoWrapper requestInfoWrapper,
+                                                    BankAccountSearchCriteria searchCriteria) {
+        log.info("Exporting bank accounts for tenant: {}", searchCriteria.getTenantId());
+
+        validator.validateSearchRequest(requestInfoWrapper, searchCriteria);
+        encryptionService.indexSearchCriteria(searchCriteria);
+
+        ObjectWriter writer = objectMapper.writer();
+        int batchSize = configuration.getExportBatchSize();
+        return outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+            List<BankAccount> batch = new ArrayList<>(batchSize);
+            int count = repository.exportBankAccounts(searchCriteria, bankAccount -> {
+                batch.add(bankAccount);
+                if (batch.size() >= batchSize) {
+                    writeExportBatch(batch, requestInfoWrapper, writer, out);
+                }
+            });
+            writeExportBatch(batch, requestInfoWrapper, writer, out);
+            log.info("Exported {} bank accounts", count);
+        };
+    }
+
+    private void writeExportBatch(List<BankAccount> batch, RequestInfoWrapper requestInfoWrapper,
+                                  ObjectWriter writer, OutputStream out) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        encryptionService.decryptBankAccountData(batch, requestInfoWrapper.getRequestInfo());
+        try {
+            for (BankAccount bankAccount : batch) {
+                out.write(writer.writeValueAsBytes(bankAccount));
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Usually the client went away; abort the query rather than reading on
+            throw new UncheckedIOException(e);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Builds the continuation token pointing past the last bank account of the page. Returns null when
+     * there is nothing left to read.
+     */
+    private String getNextCursor(BankAccountSearchCriteria criteria, List<BankAccount> bankAccounts) {
+        if (bankAccounts.isEmpty() || bankAccounts.size() < criteria.getLimit()) {
+            return null;
+        }
+
+        BankAccount last = bankAccounts.get(bankAccounts.size() - 1);
+        return CursorUtil.encode(last.getAuditDetails().getCreatedTime(), last.getId());
     }
 
     /**
@@ -142,8 +229,6 @@ public class BankAccountService {
      * This prevents issues with encryption modifying the response data
      */
     private List<BankAccount> copyBankAccounts(List<BankAccount> original) {
-        // For now, return the original list
-        // In production, implement proper deep copy to avoid encryption affecting response
-        return original;
+        return objectMapper.convertValue(original, new TypeReference<List<BankAccount>>() {});
     }
-}
\ No newline at end of file
+}
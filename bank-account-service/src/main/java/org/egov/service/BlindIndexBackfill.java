@@ -0,0 +1,117 @@
+package org.egov.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.repository.BlindIndexRepository;
+import org.egov.repository.BlindIndexRepository.UnindexedDetail;
+import org.egov.web.models.BankAccount;
+import org.egov.web.models.BankAccountDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the blind indexes of details stored before they existed, which account number and holder
+ * name searches cannot find until then. Each instance makes one pass over the unindexed details after
+ * startup, a batch at a time, skipping the batches another instance has locked. Details that fail to
+ * decrypt keep no index and are reported; a later restart retries them.
+ */
+@Component
+@Slf4j
+public class BlindIndexBackfill {
+
+    private final BlindIndexRepository blindIndexRepository;
+    private final EncryptionService encryptionService;
+    private final BankAccountServiceConfiguration configuration;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile boolean completed;
+
+    @Autowired
+    public BlindIndexBackfill(BlindIndexRepository blindIndexRepository,
+                              EncryptionService encryptionService,
+                              BankAccountServiceConfiguration configuration,
+                              PlatformTransactionManager transactionManager) {
+        this.blindIndexRepository = blindIndexRepository;
+        this.encryptionService = encryptionService;
+        this.configuration = configuration;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${bank.account.blind.index.backfill.interval.ms:60000}",
+            initialDelayString = "${bank.account.blind.index.backfill.initial.delay.ms:10000}")
+    public void backfill() {
+        if (completed || !Boolean.TRUE.equals(configuration.getBlindIndexBackfillEnabled())) {
+            return;
+        }
+
+        try {
+            // Keyset over the detail IDs, so that details left unindexed do not stop the pass
+            String lastId = "";
+            int indexed = 0;
+            List<String> failedIds = new ArrayList<>();
+            BatchResult result;
+            do {
+                String afterId = lastId;
+                result = transactionTemplate.execute(status -> backfillBatch(afterId));
+                indexed += result.indexed();
+                failedIds.addAll(result.failedIds());
+                lastId = result.lastId();
+            } while (result.size() == configuration.getBlindIndexBackfillBatchSize());
+
+            completed = true;
+            if (indexed > 0 || !failedIds.isEmpty()) {
+                log.info("Blind index backfill indexed {} bank account details", indexed);
+            }
+            if (!failedIds.isEmpty()) {
+                log.error("Blind index backfill could not decrypt bank account details: {}", failedIds);
+            }
+        } catch (Exception e) {
+            // Retried on the next run
+            log.error("Blind index backfill failed", e);
+        }
+    }
+
+    private BatchResult backfillBatch(String afterId) {
+        List<UnindexedDetail> rows = blindIndexRepository.lockUnindexedDetails(afterId,
+                configuration.getBlindIndexBackfillBatchSize());
+        if (rows.isEmpty()) {
+            return new BatchResult(0, 0, List.of(), afterId);
+        }
+
+        // One account per detail, carrying the tenant the indexes are scoped to
+        List<BankAccount> bankAccounts = new ArrayList<>(rows.size());
+        for (UnindexedDetail row : rows) {
+            BankAccountDetails detail = BankAccountDetails.builder()
+                    .id(row.id())
+                    .accountNumber(row.accountNumber())
+                    .accountHolderName(row.accountHolderName())
+                    .build();
+            bankAccounts.add(BankAccount.builder()
+                    .tenantId(row.tenantId())
+                    .bankAccountDetails(new ArrayList<>(List.of(detail)))
+                    .build());
+        }
+
+        List<String> failedIds = encryptionService.indexStoredBankAccountData(bankAccounts);
+        List<BankAccountDetails> indexed = new ArrayList<>(rows.size());
+        for (BankAccount bankAccount : bankAccounts) {
+            BankAccountDetails detail = bankAccount.getBankAccountDetails().get(0);
+            // Failed details were left without indexes
+            if (detail.getAccountNumberIndex() != null) {
+                indexed.add(detail);
+            }
+        }
+
+        blindIndexRepository.saveIndexes(indexed);
+        return new BatchResult(rows.size(), indexed.size(), failedIds, rows.get(rows.size() - 1).id());
+    }
+
+    private record BatchResult(int size, int indexed, List<String> failedIds, String lastId) {
+    }
+}
@@ -3,22 +3,33 @@ package org.egov.service;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.tracer.model.CustomException;
+import org.egov.util.BlindIndexUtil;
 import org.egov.util.EncryptionDecryptionUtil;
 import org.egov.web.models.BankAccount;
 import org.egov.web.models.BankAccountDetails;
+import org.egov.web.models.BankAccountNameToken;
 import org.egov.web.models.BankAccountSearchCriteria;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class EncryptionService {
 
     private final EncryptionDecryptionUtil encryptionUtil;
+    private final BlindIndexUtil blindIndexUtil;
     private final BankAccountServiceConfiguration configuration;
 
     // Encryption attribute keys as per requirements
@@ -29,13 +40,16 @@ public class EncryptionService {
 
     @Autowired
     public EncryptionService(EncryptionDecryptionUtil encryptionUtil,
+                           BlindIndexUtil blindIndexUtil,
                            BankAccountServiceConfiguration configuration) {
         this.encryptionUtil = encryptionUtil;
+        this.blindIndexUtil = blindIndexUtil;
         this.configuration = configuration;
     }
 
     /**
-     * Encrypts PII data in bank accounts before storing to database
+     * Encrypts PII data in bank accounts before storing to database, after computing the blind indexes
+     * used to search it
      */
     public void encryptBankAccountData(List<BankAccount> bankAccounts, RequestInfo requestInfo) {
         log.info("Starting encryption of bank account PII data");
@@ -45,14 +59,26 @@ public class EncryptionService {
             return;
         }
 
+        CryptoBatch batch = new CryptoBatch();
         for (BankAccount bankAccount : bankAccounts) {
             if (bankAccount.getBankAccountDetails() != null) {
                 for (BankAccountDetails detail : bankAccount.getBankAccountDetails()) {
-                    encryptBankAccountDetail(detail, bankAccount.getTenantId(), requestInfo);
+                    addBlindIndexes(detail, bankAccount.getTenantId());
+                    batch.add(bankAccount.getTenantId(), BANK_ACCOUNT_NUMBER_ENCRYPT, detail.getId(),
+                            detail.getAccountNumber(), detail::setAccountNumber);
+                    batch.add(bankAccount.getTenantId(), BANK_ACCOUNT_HOLDER_NAME_ENCRYPT, detail.getId(),
+                            detail.getAccountHolderName(), detail::setAccountHolderName);
                 }
             }
         }
 
+        // Plain text PII must never reach persistence, so any field left unencrypted fails the request
+        List<String> failedDetailIds = process(batch, true, requestInfo);
+        if (!failedDetailIds.isEmpty()) {
+            throw new CustomException("ENCRYPTION_FAILED",
+                    "Encryption failed for bank account details: " + String.join(", ", failedDetailIds));
+        }
+
         log.info("Bank account PII data encryption completed for {} accounts", bankAccounts.size());
     }
 
@@ -67,129 +93,147 @@ public class EncryptionService {
             return;
         }
 
+        CryptoBatch batch = new CryptoBatch();
         for (BankAccount bankAccount : bankAccounts) {
             if (bankAccount.getBankAccountDetails() != null) {
                 for (BankAccountDetails detail : bankAccount.getBankAccountDetails()) {
-                    decryptBankAccountDetail(detail, bankAccount.getTenantId(), requestInfo);
+                    batch.add(bankAccount.getTenantId(), BANK_ACCOUNT_DECRYPT, detail.getId(),
+                            detail.getAccountNumber(), detail::setAccountNumber);
+                    batch.add(bankAccount.getTenantId(), BANK_ACCOUNT_DECRYPT, detail.getId(),
+                            detail.getAccountHolderName(), detail::setAccountHolderName);
                 }
             }
         }
 
+        // Records that fail to decrypt are still returned, with their encrypted values
+        List<String> failedDetailIds = process(batch, false, requestInfo);
+        if (!failedDetailIds.isEmpty()) {
+            log.warn("Continuing with encrypted data for detail IDs: {}", failedDetailIds);
+        }
+
         log.info("Bank account PII data decryption completed for {} accounts", bankAccounts.size());
     }
 
     /**
-     * Encrypts search criteria fields that contain PII
+     * Computes the blind indexes of details read back from the database, which were stored encrypted
+     * before indexes existed. The values of the given details are decrypted in place; details that fail
+     * to decrypt get no indexes and their IDs are returned.
      */
-    public void encryptSearchCriteria(BankAccountSearchCriteria criteria, RequestInfo requestInfo) {
-        log.info("Encrypting search criteria PII data");
+    public List<String> indexStoredBankAccountData(List<BankAccount> bankAccounts) {
+        CryptoBatch batch = new CryptoBatch();
+        for (BankAccount bankAccount : bankAccounts) {
+            for (BankAccountDetails detail : bankAccount.getBankAccountDetails()) {
+                batch.add(bankAccount.getTenantId(), BANK_ACCOUNT_DECRYPT, detail.getId(),
+                        detail.getAccountNumber(), detail::setAccountNumber);
+                batch.add(bankAccount.getTenantId(), BANK_ACCOUNT_DECRYPT, detail.getId(),
+                        detail.getAccountHolderName(), detail::setAccountHolderName);
+            }
+        }
 
+        // No request is involved; the engines do not depend on the caller
+        List<String> failedDetailIds = process(batch, false, null);
+        Set<String> failed = new HashSet<>(failedDetailIds);
+        for (BankAccount bankAccount : bankAccounts) {
+            for (BankAccountDetails detail : bankAccount.getBankAccountDetails()) {
+                if (!failed.contains(detail.getId())) {
+                    addBlindIndexes(detail, bankAccount.getTenantId());
+                }
+            }
+        }
+        return failedDetailIds;
+    }
+
+    /**
+     * Replaces the PII search inputs with their blind indexes. Encrypted values cannot be compared, so
+     * account numbers and holder names are searched through their indexes instead.
+     */
+    public void indexSearchCriteria(BankAccountSearchCriteria criteria) {
         String tenantId = criteria.getTenantId();
 
-        // Encrypt account holder name if provided
         if (StringUtils.hasText(criteria.getAccountHolderName())) {
-            try {
-                String encryptedName = encryptionUtil.encryptValue(
-                    criteria.getAccountHolderName(),
-                    tenantId,
-                    BANK_ACCOUNT_HOLDER_NAME_ENCRYPT,
-                    requestInfo
-                );
-                criteria.setAccountHolderName(encryptedName);
-                log.debug("Encrypted account holder name in search criteria");
-            } catch (Exception e) {
-                log.error("Failed to encrypt account holder name in search criteria", e);
-            }
+            criteria.setAccountHolderNameTokenIndexes(
+                    blindIndexUtil.nameTokenIndexes(tenantId, criteria.getAccountHolderName()));
         }
 
-        // Encrypt account numbers if provided
         if (!CollectionUtils.isEmpty(criteria.getAccountNumber())) {
-            try {
-                List<String> encryptedNumbers = encryptionUtil.encryptValues(
-                    criteria.getAccountNumber(),
-                    tenantId,
-                    BANK_ACCOUNT_NUMBER_ENCRYPT,
-                    requestInfo
-                );
-                criteria.setAccountNumber(encryptedNumbers);
-                log.debug("Encrypted account numbers in search criteria");
-            } catch (Exception e) {
-                log.error("Failed to encrypt account numbers in search criteria", e);
+            List<String> accountNumberIndexes = new ArrayList<>(criteria.getAccountNumber().size());
+            for (String accountNumber : criteria.getAccountNumber()) {
+                String index = blindIndexUtil.accountNumberIndex(tenantId, accountNumber);
+                if (index != null) {
+                    accountNumberIndexes.add(index);
+                }
             }
+            criteria.setAccountNumberIndexes(accountNumberIndexes);
         }
 
-        log.info("Search criteria PII encryption completed");
+        log.debug("Computed blind indexes for search criteria");
     }
 
     /**
-     * Encrypts individual bank account detail
+     * Sets the blind indexes of the account number and of the words of the holder name; called while
+     * the values are still in plain text.
      */
-    private void encryptBankAccountDetail(BankAccountDetails detail, String tenantId, RequestInfo requestInfo) {
-        try {
-            // Encrypt account number
-            if (StringUtils.hasText(detail.getAccountNumber())) {
-                String encryptedAccountNumber = encryptionUtil.encryptValue(
-                    detail.getAccountNumber(),
-                    tenantId,
-                    BANK_ACCOUNT_NUMBER_ENCRYPT,
-                    requestInfo
-                );
-                detail.setAccountNumber(encryptedAccountNumber);
-                log.debug("Encrypted account number for detail ID: {}", detail.getId());
-            }
+    private void addBlindIndexes(BankAccountDetails detail, String tenantId) {
+        detail.setAccountNumberIndex(blindIndexUtil.accountNumberIndex(tenantId, detail.getAccountNumber()));
 
-            // Encrypt account holder name
-            if (StringUtils.hasText(detail.getAccountHolderName())) {
-                String encryptedHolderName = encryptionUtil.encryptValue(
-                    detail.getAccountHolderName(),
-                    tenantId,
-                    BANK_ACCOUNT_HOLDER_NAME_ENCRYPT,
-                    requestInfo
-                );
-                detail.setAccountHolderName(encryptedHolderName);
-                log.debug("Encrypted account holder name for detail ID: {}", detail.getId());
-            }
-
-        } catch (Exception e) {
-            log.error("Failed to encrypt bank account detail with ID: {}", detail.getId(), e);
-            throw new RuntimeException("Encryption failed for bank account detail", e);
+        List<BankAccountNameToken> tokens = new ArrayList<>();
+        for (String tokenIndex : blindIndexUtil.nameTokenIndexes(tenantId, detail.getAccountHolderName())) {
+            tokens.add(BankAccountNameToken.builder()
+                    .id(UUID.randomUUID().toString())
+                    .tokenIndex(tokenIndex)
+                    .build());
         }
+        detail.setAccountHolderNameTokens(tokens);
     }
 
     /**
-     * Decrypts individual bank account detail
+     * Runs the batch with one encrypt or decrypt call per (tenant, key type). When a batch call fails the
+     * values of that batch are retried one by one, so a single bad value does not fail the others.
+     * Successful results are written back to their targets; the IDs of the items that failed are returned.
      */
-    private void decryptBankAccountDetail(BankAccountDetails detail, String tenantId, RequestInfo requestInfo) {
-        try {
-            // Decrypt account number
-            if (StringUtils.hasText(detail.getAccountNumber())) {
-                String decryptedAccountNumber = encryptionUtil.decryptValue(
-                    detail.getAccountNumber(),
-                    tenantId,
-                    BANK_ACCOUNT_DECRYPT,
-                    requestInfo
-                );
-                detail.setAccountNumber(decryptedAccountNumber);
-                log.debug("Decrypted account number for detail ID: {}", detail.getId());
+    private List<String> process(CryptoBatch batch, boolean encrypt, RequestInfo requestInfo) {
+        List<String> failedItemIds = new ArrayList<>();
+
+        batch.items.forEach((key, items) -> {
+            List<String> values = new ArrayList<>(items.size());
+            for (CryptoItem item : items) {
+                values.add(item.value());
             }
 
-            // Decrypt account holder name
-            if (StringUtils.hasText(detail.getAccountHolderName())) {
-                String decryptedHolderName = encryptionUtil.decryptValue(
-                    detail.getAccountHolderName(),
-                    tenantId,
-                    BANK_ACCOUNT_DECRYPT,
-                    requestInfo
-                );
-                detail.setAccountHolderName(decryptedHolderName);
-                log.debug("Decrypted account holder name for detail ID: {}", detail.getId());
+            try {
+                List<String> results = transform(values, key, encrypt, requestInfo);
+                if (results == null || results.size() != items.size()) {
+                    throw new IllegalStateException("Expected " + items.size() + " results but received "
+                            + (results == null ? 0 : results.size()));
+                }
+                for (int i = 0; i < items.size(); i++) {
+                    items.get(i).target().accept(results.get(i));
+                }
+                log.debug("{} {} values of type {} for tenant {}", encrypt ? "Encrypted" : "Decrypted",
+                        items.size(), key.type(), key.tenantId());
+            } catch (Exception e) {
+                log.error("Batch {} failed for type {} in tenant {}, retrying {} values individually",
+                        encrypt ? "encryption" : "decryption", key.type(), key.tenantId(), items.size(), e);
+                for (CryptoItem item : items) {
+                    try {
+                        List<String> result = transform(List.of(item.value()), key, encrypt, requestInfo);
+                        item.target().accept(result.get(0));
+                    } catch (Exception itemException) {
+                        log.error("Failed to {} {} value for item: {}", encrypt ? "encrypt" : "decrypt",
+                                key.type(), item.itemId(), itemException);
+                        failedItemIds.add(item.itemId());
+                    }
+                }
             }
+        });
 
-        } catch (Exception e) {
-            log.error("Failed to decrypt bank account detail with ID: {}", detail.getId(), e);
-            // Continue processing other records even if one fails
-            log.warn("Continuing with encrypted data for detail ID: {}", detail.getId());
-        }
+        return failedItemIds;
+    }
+
+    private List<String> transform(List<String> values, CryptoKey key, boolean encrypt, RequestInfo requestInfo) {
+        return encrypt
+                ? encryptionUtil.encryptValues(values, key.tenantId(), key.type(), requestInfo)
+                : encryptionUtil.decryptValues(values, key.tenantId(), key.type(), requestInfo);
     }
 
     /**
@@ -208,4 +252,26 @@ public class EncryptionService {
         // Create context for encryption service
         return tenantId;
     }
-}
\ No newline at end of file
+
+    /**
+     * Values to encrypt or decrypt, grouped by (tenant, key type) in insertion order.
+     */
+    private static final class CryptoBatch {
+
+        private final Map<CryptoKey, List<CryptoItem>> items = new LinkedHashMap<>();
+
+        private void add(String tenantId, String type, String itemId, String value, Consumer<String> target) {
+            if (!StringUtils.hasText(value)) {
+                return;
+            }
+            items.computeIfAbsent(new CryptoKey(tenantId, type), key -> new ArrayList<>())
+                    .add(new CryptoItem(itemId, value, target));
+        }
+    }
+
+    private record CryptoKey(String tenantId, String type) {
+    }
+
+    private record CryptoItem(String itemId, String value, Consumer<String> target) {
+    }
+}
@@ -0,0 +1,110 @@
+package org.egov.util;
+
+import org.egov.config.BankAccountServiceConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Computes blind indexes of PII: keyed HMAC-SHA256 digests of normalized values, scoped to a tenant and
+ * a field. Equal inputs always give the same index, so encrypted values can be searched with plain
+ * equality lookups, while the index reveals nothing about the value without the key.
+ */
+@Component
+public class BlindIndexUtil {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final String ACCOUNT_NUMBER_FIELD = "accountNumber";
+    private static final String NAME_TOKEN_FIELD = "accountHolderNameToken";
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public BlindIndexUtil(BankAccountServiceConfiguration configuration) {
+        if (!StringUtils.hasText(configuration.getBlindIndexKey())) {
+            throw new IllegalStateException("bank.account.blind.index.key must be set");
+        }
+        byte[] keyBytes;
+        try {
+            keyBytes = Base64.getDecoder().decode(configuration.getBlindIndexKey().trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("bank.account.blind.index.key must be Base64 encoded", e);
+        }
+        // Account numbers have little entropy, so the index is only as strong as the key
+        if (keyBytes.length < MIN_KEY_LENGTH) {
+            throw new IllegalStateException("bank.account.blind.index.key must be at least " + MIN_KEY_LENGTH + " bytes");
+        }
+        SecretKeySpec key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialise " + MAC_ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * Returns the index of an account number, ignoring spaces, hyphens and case; null for blank input.
+     */
+    public String accountNumberIndex(String tenantId, String accountNumber) {
+        if (!StringUtils.hasText(accountNumber)) {
+            return null;
+        }
+        String normalized = accountNumber.replaceAll("[\\s-]", "").toUpperCase(Locale.ROOT);
+        return index(tenantId, ACCOUNT_NUMBER_FIELD, normalized);
+    }
+
+    /**
+     * Returns the distinct indexes of the words of a name, in order of first occurrence. Names are
+     * normalized to lower case letters and digits, and words shorter than two characters are dropped.
+     */
+    public List<String> nameTokenIndexes(String tenantId, String name) {
+        List<String> indexes = new ArrayList<>();
+        for (String token : tokenize(name)) {
+            indexes.add(index(tenantId, NAME_TOKEN_FIELD, token));
+        }
+        return indexes;
+    }
+
+    private static Set<String> tokenize(String name) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (!StringUtils.hasText(name)) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(name, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (String token : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private String index(String tenantId, String field, String value) {
+        Mac mac = macs.get();
+        mac.update(tenantId.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        mac.update(field.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+}
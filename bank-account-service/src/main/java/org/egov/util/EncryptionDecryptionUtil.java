@@ -1,11 +1,9 @@
 package org.egov.util;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.common.contract.request.RequestInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
 
@@ -13,42 +11,36 @@ import java.util.*;
 @Slf4j
 public class EncryptionDecryptionUtil {
 
-    private final ObjectMapper mapper;
-    private final RestTemplate restTemplate;
+    private final EncryptionEngine encryptionEngine;
 
     @Autowired
-    public EncryptionDecryptionUtil(ObjectMapper mapper, RestTemplate restTemplate) {
-        this.mapper = mapper;
-        this.restTemplate = restTemplate;
+    public EncryptionDecryptionUtil(EncryptionEngine encryptionEngine) {
+        this.encryptionEngine = encryptionEngine;
     }
 
     public String encryptValue(String plainText, String tenantId, String type, RequestInfo requestInfo) {
-        // For now, return the plain text as encryption service integration would require
-        // specific configuration and service endpoints
-        log.debug("Encryption requested for type: {} in tenant: {}", type, tenantId);
-        return plainText; // TODO: Implement actual encryption service call
+        return encryptValues(Collections.singletonList(plainText), tenantId, type, requestInfo).get(0);
     }
 
     public String decryptValue(String encryptedText, String tenantId, String type, RequestInfo requestInfo) {
-        // For now, return the encrypted text as decryption service integration would require
-        // specific configuration and service endpoints
-        log.debug("Decryption requested for type: {} in tenant: {}", type, tenantId);
-        return encryptedText; // TODO: Implement actual decryption service call
+        return decryptValues(Collections.singletonList(encryptedText), tenantId, type, requestInfo).get(0);
     }
 
+    /**
+     * Encrypts a batch of values of one key type for a tenant in a single call. The result has the same
+     * size and order as {@code plainTexts}.
+     */
     public List<String> encryptValues(List<String> plainTexts, String tenantId, String type, RequestInfo requestInfo) {
-        List<String> encryptedValues = new ArrayList<>();
-        for (String plainText : plainTexts) {
-            encryptedValues.add(encryptValue(plainText, tenantId, type, requestInfo));
-        }
-        return encryptedValues;
+        log.debug("Encryption of {} values requested for type: {} in tenant: {}", plainTexts.size(), type, tenantId);
+        return encryptionEngine.encrypt(plainTexts, tenantId, type);
     }
 
+    /**
+     * Decrypts a batch of values of one key type for a tenant in a single call. The result has the same
+     * size and order as {@code encryptedTexts}.
+     */
     public List<String> decryptValues(List<String> encryptedTexts, String tenantId, String type, RequestInfo requestInfo) {
-        List<String> decryptedValues = new ArrayList<>();
-        for (String encryptedText : encryptedTexts) {
-            decryptedValues.add(decryptValue(encryptedText, tenantId, type, requestInfo));
-        }
-        return decryptedValues;
+        log.debug("Decryption of {} values requested for type: {} in tenant: {}", encryptedTexts.size(), type, tenantId);
+        return encryptionEngine.decrypt(encryptedTexts, tenantId, type);
     }
-}
\ No newline at end of file
+}
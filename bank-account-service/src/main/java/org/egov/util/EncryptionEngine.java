@@ -0,0 +1,15 @@
+package org.egov.util;
+
+import java.util.List;
+
+/**
+ * Encrypts and decrypts PII values for {@link EncryptionDecryptionUtil}. Implementations work on batches
+ * of values of one key type for one tenant and return results in the order of their input. The engine
+ * is chosen with {@code bank.account.encryption.engine}.
+ */
+public interface EncryptionEngine {
+
+    List<String> encrypt(List<String> plainTexts, String tenantId, String type);
+
+    List<String> decrypt(List<String> encryptedTexts, String tenantId, String type);
+}
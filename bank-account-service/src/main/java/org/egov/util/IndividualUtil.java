@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
@@ -26,35 +27,59 @@ public class IndividualUtil {
     }
 
     public boolean validateIndividualId(String individualId, String tenantId, RequestInfo requestInfo) {
-        log.info("Validating individual ID: {} for tenant: {}", individualId, tenantId);
-        
         try {
-            Map<String, Object> searchRequest = new HashMap<>();
-            searchRequest.put("requestInfo", requestInfo);
-            
-            Map<String, Object> searchCriteria = new HashMap<>();
-            searchCriteria.put("tenantId", tenantId);
-            searchCriteria.put("ids", Collections.singletonList(individualId));
-            searchCriteria.put("limit", 1);
-            searchCriteria.put("offset", 0);
-            
-            searchRequest.put("Individual", searchCriteria);
-            
+            return searchIndividualIds(Collections.singletonList(individualId), tenantId, requestInfo).contains(individualId);
+        } catch (Exception e) {
+            log.error("Error validating individual ID: {}", individualId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Searches all the given IDs of a tenant in one call and returns those that exist. Throws when the
+     * individual service cannot be reached, so that callers can tell a failed lookup from unknown IDs.
+     */
+    public Set<String> searchIndividualIds(Collection<String> individualIds, String tenantId, RequestInfo requestInfo) {
+        log.info("Searching {} individual IDs for tenant: {}", individualIds.size(), tenantId);
+
+        Map<String, Object> searchRequest = new HashMap<>();
+        searchRequest.put("requestInfo", requestInfo);
+
+        Map<String, Object> searchCriteria = new HashMap<>();
+        searchCriteria.put("tenantId", tenantId);
+        searchCriteria.put("ids", new ArrayList<>(individualIds));
+        searchCriteria.put("limit", individualIds.size());
+        searchCriteria.put("offset", 0);
+
+        searchRequest.put("Individual", searchCriteria);
+
+        Set<String> existingIds = new HashSet<>();
+        try {
             String url = configuration.getIndividualHost() + configuration.getIndividualSearchEndpoint();
             String response = restTemplate.postForObject(url, searchRequest, String.class);
-            
+
             if (response != null) {
                 Map<String, Object> responseMap = mapper.readValue(response, Map.class);
-                List<Object> individuals = (List<Object>) responseMap.get("Individual");
-                
-                boolean isValid = individuals != null && !individuals.isEmpty();
-                log.info("Individual validation result for ID {}: {}", individualId, isValid);
-                return isValid;
+                List<Map<String, Object>> results = (List<Map<String, Object>>) responseMap.get("Individual");
+                if (results != null) {
+                    for (Map<String, Object> result : results) {
+                        addIfPresent(existingIds, result.get("id"));
+                        addIfPresent(existingIds, result.get("individualId"));
+                    }
+                }
             }
         } catch (Exception e) {
-            log.error("Error validating individual ID: {}", individualId, e);
+            log.error("Error searching individual IDs for tenant: {}", tenantId, e);
+            throw new CustomException("INDIVIDUAL_SEARCH_FAILED", "Unable to validate individual IDs for tenant: " + tenantId);
+        }
+
+        log.info("Found {} of {} individual IDs for tenant: {}", existingIds.size(), individualIds.size(), tenantId);
+        return existingIds;
+    }
+
+    private static void addIfPresent(Set<String> ids, Object id) {
+        if (id != null) {
+            ids.add(id.toString());
         }
-        
-        return false;
     }
 }
\ No newline at end of file
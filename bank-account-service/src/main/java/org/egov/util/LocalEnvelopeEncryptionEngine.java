@@ -0,0 +1,251 @@
+package org.egov.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.repository.DataKeyRepository;
+import org.egov.repository.DataKeyRepository.WrappedDataKey;
+import org.egov.tracer.model.CustomException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process envelope encryption. Values are encrypted with AES-256-GCM under a per-tenant data key; data
+ * keys are stored wrapped by a master key read from a local PKCS#12 keystore. Ciphertexts have the form
+ * {@code ENC1:<keyVersion>:<base64(iv | ciphertext | tag)>} and are bound to their tenant, so that data
+ * keys can be rotated while values encrypted under older versions stay readable. Values without the
+ * prefix are treated as not yet encrypted and returned unchanged on decryption.
+ * <p>
+ * The JCE uses AES-NI for AES-GCM where the CPU supports it; cipher instances are kept per thread.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "bank.account.encryption.engine", havingValue = "local")
+public class LocalEnvelopeEncryptionEngine implements EncryptionEngine {
+
+    private static final String CIPHERTEXT_PREFIX = "ENC1:";
+    private static final String KEY_ALGORITHM = "AES";
+    private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int DATA_KEY_BITS = 256;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(CIPHER_TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(CIPHER_TRANSFORMATION + " is not supported by this JVM", e);
+        }
+    });
+
+    private final DataKeyRepository dataKeyRepository;
+    private final SecretKey masterKey;
+    private final String masterKeyAlias;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Cache<String, DataKey> activeKeys;
+    private final Map<String, DataKey> keysByVersion = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LocalEnvelopeEncryptionEngine(DataKeyRepository dataKeyRepository,
+                                         BankAccountServiceConfiguration configuration) {
+        this.dataKeyRepository = dataKeyRepository;
+        this.masterKeyAlias = configuration.getEncryptionMasterKeyAlias();
+        this.masterKey = loadMasterKey(configuration.getEncryptionKeystorePath(),
+                configuration.getEncryptionKeystorePassword(), masterKeyAlias);
+        // The active version is re-read periodically so that a rotation on another instance is picked up
+        this.activeKeys = Caffeine.newBuilder()
+                .expireAfterWrite(configuration.getEncryptionDataKeyCacheSeconds(), TimeUnit.SECONDS)
+                .build();
+        log.info("Local envelope encryption enabled with master key: {}", masterKeyAlias);
+    }
+
+    @Override
+    public List<String> encrypt(List<String> plainTexts, String tenantId, String type) {
+        DataKey dataKey = activeKeys.get(tenantId, this::loadActiveKey);
+        byte[] aad = tenantId.getBytes(StandardCharsets.UTF_8);
+        String prefix = CIPHERTEXT_PREFIX + dataKey.version() + ":";
+
+        List<String> encryptedTexts = new ArrayList<>(plainTexts.size());
+        for (String plainText : plainTexts) {
+            if (plainText == null) {
+                encryptedTexts.add(null);
+                continue;
+            }
+            byte[] sealed = seal(dataKey.key(), aad, plainText.getBytes(StandardCharsets.UTF_8));
+            encryptedTexts.add(prefix + Base64.getEncoder().encodeToString(sealed));
+        }
+        return encryptedTexts;
+    }
+
+    @Override
+    public List<String> decrypt(List<String> encryptedTexts, String tenantId, String type) {
+        byte[] aad = tenantId.getBytes(StandardCharsets.UTF_8);
+
+        List<String> plainTexts = new ArrayList<>(encryptedTexts.size());
+        for (String encryptedText : encryptedTexts) {
+            if (encryptedText == null || !encryptedText.startsWith(CIPHERTEXT_PREFIX)) {
+                plainTexts.add(encryptedText);
+                continue;
+            }
+
+            int separator = encryptedText.indexOf(':', CIPHERTEXT_PREFIX.length());
+            if (separator < 0) {
+                throw new CustomException("DECRYPTION_FAILED", "Malformed encrypted value for tenant: " + tenantId);
+            }
+            int version;
+            byte[] sealed;
+            try {
+                version = Integer.parseInt(encryptedText.substring(CIPHERTEXT_PREFIX.length(), separator));
+                sealed = Base64.getDecoder().decode(encryptedText.substring(separator + 1));
+            } catch (IllegalArgumentException e) {
+                throw new CustomException("DECRYPTION_FAILED", "Malformed encrypted value for tenant: " + tenantId);
+            }
+
+            DataKey dataKey = getKey(tenantId, version);
+            plainTexts.add(new String(open(dataKey.key(), aad, sealed), StandardCharsets.UTF_8));
+        }
+        return plainTexts;
+    }
+
+    /**
+     * Creates a new data key version for the tenant and makes it the one used for encryption. Values
+     * encrypted under earlier versions remain decryptable.
+     */
+    public int rotateDataKey(String tenantId) {
+        WrappedDataKey latest = dataKeyRepository.getLatestKey(tenantId);
+        int version = latest == null ? 1 : latest.keyVersion() + 1;
+        if (!createKey(tenantId, version)) {
+            throw new CustomException("DATA_KEY_ROTATION_FAILED",
+                    "Data key version " + version + " was created concurrently for tenant: " + tenantId);
+        }
+        activeKeys.invalidate(tenantId);
+        return version;
+    }
+
+    private DataKey loadActiveKey(String tenantId) {
+        WrappedDataKey latest = dataKeyRepository.getLatestKey(tenantId);
+        if (latest == null) {
+            // First value of the tenant; if another instance wins the race its key is used instead
+            createKey(tenantId, 1);
+            latest = dataKeyRepository.getLatestKey(tenantId);
+        }
+        WrappedDataKey wrapped = latest;
+        return keysByVersion.computeIfAbsent(versionKey(tenantId, wrapped.keyVersion()), key -> unwrap(wrapped));
+    }
+
+    private DataKey getKey(String tenantId, int version) {
+        return keysByVersion.computeIfAbsent(versionKey(tenantId, version), key -> {
+            WrappedDataKey wrapped = dataKeyRepository.getKey(tenantId, version);
+            if (wrapped == null) {
+                throw new CustomException("DATA_KEY_NOT_FOUND",
+                        "No data key version " + version + " found for tenant: " + tenantId);
+            }
+            return unwrap(wrapped);
+        });
+    }
+
+    private boolean createKey(String tenantId, int version) {
+        try {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance(KEY_ALGORITHM);
+            keyGenerator.init(DATA_KEY_BITS, secureRandom);
+            byte[] wrapped = seal(masterKey, wrapAad(tenantId, version), keyGenerator.generateKey().getEncoded());
+            return dataKeyRepository.insertKey(new WrappedDataKey(tenantId, version,
+                    Base64.getEncoder().encodeToString(wrapped), masterKeyAlias));
+        } catch (GeneralSecurityException e) {
+            throw new CustomException("DATA_KEY_GENERATION_FAILED", "Unable to generate data key for tenant: " + tenantId);
+        }
+    }
+
+    private DataKey unwrap(WrappedDataKey wrapped) {
+        if (!masterKeyAlias.equals(wrapped.masterKeyAlias())) {
+            throw new CustomException("DATA_KEY_INVALID", "Data key version " + wrapped.keyVersion() + " of tenant "
+                    + wrapped.tenantId() + " is wrapped by unknown master key: " + wrapped.masterKeyAlias());
+        }
+        byte[] key = open(masterKey, wrapAad(wrapped.tenantId(), wrapped.keyVersion()),
+                Base64.getDecoder().decode(wrapped.wrappedKey()));
+        return new DataKey(wrapped.keyVersion(), new SecretKeySpec(key, KEY_ALGORITHM));
+    }
+
+    /**
+     * Encrypts with a fresh random IV and returns {@code iv | ciphertext | tag}.
+     */
+    private byte[] seal(SecretKey key, byte[] aad, byte[] plainText) {
+        byte[] iv = new byte[IV_BYTES];
+        secureRandom.nextBytes(iv);
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(aad);
+            ByteBuffer sealed = ByteBuffer.allocate(IV_BYTES + cipher.getOutputSize(plainText.length));
+            sealed.put(iv);
+            cipher.doFinal(ByteBuffer.wrap(plainText), sealed);
+            return sealed.array();
+        } catch (GeneralSecurityException e) {
+            throw new CustomException("ENCRYPTION_FAILED", "Unable to encrypt value");
+        }
+    }
+
+    private byte[] open(SecretKey key, byte[] aad, byte[] sealed) {
+        if (sealed.length < IV_BYTES + TAG_BITS / 8) {
+            throw new CustomException("DECRYPTION_FAILED", "Encrypted value is truncated");
+        }
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_BYTES));
+            cipher.updateAAD(aad);
+            return cipher.doFinal(sealed, IV_BYTES, sealed.length - IV_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new CustomException("DECRYPTION_FAILED", "Unable to decrypt value");
+        }
+    }
+
+    private static byte[] wrapAad(String tenantId, int version) {
+        return (tenantId + ":" + version).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String versionKey(String tenantId, int version) {
+        return tenantId + "|" + version;
+    }
+
+    private static SecretKey loadMasterKey(String keystorePath, String password, String alias) {
+        char[] passwordChars = password == null ? new char[0] : password.toCharArray();
+        try (InputStream inputStream = Files.newInputStream(Paths.get(keystorePath))) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(inputStream, passwordChars);
+            Key key = keyStore.getKey(alias, passwordChars);
+            if (!(key instanceof SecretKey secretKey) || !KEY_ALGORITHM.equalsIgnoreCase(key.getAlgorithm())) {
+                throw new IllegalStateException("Keystore entry " + alias + " is not an AES secret key");
+            }
+            return secretKey;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to load master key " + alias + " from keystore " + keystorePath, e);
+        }
+    }
+
+    private record DataKey(int version, SecretKey key) {
+    }
+}
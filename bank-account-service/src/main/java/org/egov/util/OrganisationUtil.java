@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
@@ -26,35 +27,59 @@ public class OrganisationUtil {
     }
 
     public boolean validateOrganisationId(String organisationId, String tenantId, RequestInfo requestInfo) {
-        log.info("Validating organisation ID: {} for tenant: {}", organisationId, tenantId);
-        
         try {
-            Map<String, Object> searchRequest = new HashMap<>();
-            searchRequest.put("requestInfo", requestInfo);
-            
-            Map<String, Object> searchCriteria = new HashMap<>();
-            searchCriteria.put("tenantId", tenantId);
-            searchCriteria.put("ids", Collections.singletonList(organisationId));
-            searchCriteria.put("limit", 1);
-            searchCriteria.put("offset", 0);
-            
-            searchRequest.put("SearchCriteria", searchCriteria);
-            
+            return searchOrganisationIds(Collections.singletonList(organisationId), tenantId, requestInfo).contains(organisationId);
+        } catch (Exception e) {
+            log.error("Error validating organisation ID: {}", organisationId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Searches all the given IDs of a tenant in one call and returns those that exist. Throws when the
+     * organisation service cannot be reached, so that callers can tell a failed lookup from unknown IDs.
+     */
+    public Set<String> searchOrganisationIds(Collection<String> organisationIds, String tenantId, RequestInfo requestInfo) {
+        log.info("Searching {} organisation IDs for tenant: {}", organisationIds.size(), tenantId);
+
+        Map<String, Object> searchRequest = new HashMap<>();
+        searchRequest.put("requestInfo", requestInfo);
+
+        Map<String, Object> searchCriteria = new HashMap<>();
+        searchCriteria.put("tenantId", tenantId);
+        searchCriteria.put("ids", new ArrayList<>(organisationIds));
+        searchCriteria.put("limit", organisationIds.size());
+        searchCriteria.put("offset", 0);
+
+        searchRequest.put("SearchCriteria", searchCriteria);
+
+        Set<String> existingIds = new HashSet<>();
+        try {
             String url = configuration.getOrganisationHost() + configuration.getOrganisationSearchEndpoint();
             String response = restTemplate.postForObject(url, searchRequest, String.class);
-            
+
             if (response != null) {
                 Map<String, Object> responseMap = mapper.readValue(response, Map.class);
-                List<Object> organisations = (List<Object>) responseMap.get("organisations");
-                
-                boolean isValid = organisations != null && !organisations.isEmpty();
-                log.info("Organisation validation result for ID {}: {}", organisationId, isValid);
-                return isValid;
+                List<Map<String, Object>> results = (List<Map<String, Object>>) responseMap.get("organisations");
+                if (results != null) {
+                    for (Map<String, Object> result : results) {
+                        addIfPresent(existingIds, result.get("id"));
+                        addIfPresent(existingIds, result.get("orgNumber"));
+                    }
+                }
             }
         } catch (Exception e) {
-            log.error("Error validating organisation ID: {}", organisationId, e);
+            log.error("Error searching organisation IDs for tenant: {}", tenantId, e);
+            throw new CustomException("ORGANISATION_SEARCH_FAILED", "Unable to validate organisation IDs for tenant: " + tenantId);
+        }
+
+        log.info("Found {} of {} organisation IDs for tenant: {}", existingIds.size(), organisationIds.size(), tenantId);
+        return existingIds;
+    }
+
+    private static void addIfPresent(Set<String> ids, Object id) {
+        if (id != null) {
+            ids.add(id.toString());
         }
-        
-        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package org.egov.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Default engine that returns values unchanged, for environments without encryption.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "bank.account.encryption.engine", havingValue = "passthrough", matchIfMissing = true)
+public class PassthroughEncryptionEngine implements EncryptionEngine {
+
+    @Override
+    public List<String> encrypt(List<String> plainTexts, String tenantId, String type) {
+        log.debug("Passthrough encryption of {} values for type: {} in tenant: {}", plainTexts.size(), type, tenantId);
+        return new ArrayList<>(plainTexts);
+    }
+
+    @Override
+    public List<String> decrypt(List<String> encryptedTexts, String tenantId, String type) {
+        log.debug("Passthrough decryption of {} values for type: {} in tenant: {}", encryptedTexts.size(), type, tenantId);
+        return new ArrayList<>(encryptedTexts);
+    }
+}
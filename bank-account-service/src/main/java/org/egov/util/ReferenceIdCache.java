@@ -0,0 +1,154 @@
+package org.egov.util;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.config.BankAccountServiceConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches whether individual and organisation reference IDs exist, keyed by (tenantId, serviceCode,
+ * referenceId). IDs found are kept for the positive TTL and IDs not found for the shorter negative TTL.
+ * Lookups for IDs already being searched share the in-flight search instead of starting a new one;
+ * failed searches are not cached.
+ */
+@Component
+@Slf4j
+public class ReferenceIdCache {
+
+    public static final String SERVICE_CODE_INDIVIDUAL = "IND";
+    public static final String SERVICE_CODE_ORGANISATION = "ORG";
+
+    private static final String CACHE_NAME = "bankaccount.reference.cache";
+
+    private final IndividualUtil individualUtil;
+    private final OrganisationUtil organisationUtil;
+    private final BankAccountServiceConfiguration configuration;
+    private final ExecutorService executor;
+    private final AsyncCache<ReferenceKey, Boolean> cache;
+
+    @Autowired
+    public ReferenceIdCache(IndividualUtil individualUtil,
+                            OrganisationUtil organisationUtil,
+                            BankAccountServiceConfiguration configuration,
+                            @Qualifier("referenceValidationExecutor") ExecutorService executor,
+                            MeterRegistry meterRegistry) {
+        this.individualUtil = individualUtil;
+        this.organisationUtil = organisationUtil;
+        this.configuration = configuration;
+        this.executor = executor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(configuration.getReferenceCacheMaxSize())
+                .expireAfter(new ExistenceExpiry(
+                        TimeUnit.SECONDS.toNanos(configuration.getReferenceCachePositiveTtlSeconds()),
+                        TimeUnit.SECONDS.toNanos(configuration.getReferenceCacheNegativeTtlSeconds())))
+                .executor(executor)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the subset of {@code referenceIds} that exist for the service code in the tenant. Only the
+     * IDs that are neither cached nor in flight are searched, with a single call.
+     */
+    public CompletableFuture<Set<String>> getExistingIds(String serviceCode, String tenantId,
+                                                         Set<String> referenceIds, RequestInfo requestInfo) {
+        if (!Boolean.TRUE.equals(configuration.getReferenceCacheEnabled())) {
+            return CompletableFuture.supplyAsync(() -> search(serviceCode, tenantId, referenceIds, requestInfo), executor);
+        }
+
+        List<ReferenceKey> keys = new ArrayList<>(referenceIds.size());
+        for (String referenceId : referenceIds) {
+            keys.add(new ReferenceKey(tenantId, serviceCode, referenceId));
+        }
+
+        return cache.getAll(keys, (missingKeys, loaderExecutor) -> CompletableFuture.supplyAsync(() -> {
+            Set<String> missingIds = new HashSet<>();
+            for (ReferenceKey key : missingKeys) {
+                missingIds.add(key.referenceId());
+            }
+
+            Set<String> existingIds = search(serviceCode, tenantId, missingIds, requestInfo);
+            Map<ReferenceKey, Boolean> loaded = new HashMap<>();
+            for (ReferenceKey key : missingKeys) {
+                loaded.put(key, existingIds.contains(key.referenceId()));
+            }
+            return loaded;
+        }, loaderExecutor)).thenApply(existence -> {
+            Set<String> existingIds = new HashSet<>();
+            existence.forEach((key, exists) -> {
+                if (Boolean.TRUE.equals(exists)) {
+                    existingIds.add(key.referenceId());
+                }
+            });
+            return existingIds;
+        });
+    }
+
+    /**
+     * Evicts cached entries. Null arguments act as wildcards, so calling it without arguments clears the
+     * whole cache. Returns the number of entries evicted.
+     */
+    public int evict(String tenantId, String serviceCode, String referenceId) {
+        Set<ReferenceKey> keys = new HashSet<>();
+        for (ReferenceKey key : cache.synchronous().asMap().keySet()) {
+            if (matches(tenantId, key.tenantId()) && matches(serviceCode, key.serviceCode())
+                    && matches(referenceId, key.referenceId())) {
+                keys.add(key);
+            }
+        }
+
+        cache.synchronous().invalidateAll(keys);
+        log.info("Evicted {} reference ID cache entries", keys.size());
+        return keys.size();
+    }
+
+    private Set<String> search(String serviceCode, String tenantId, Set<String> referenceIds, RequestInfo requestInfo) {
+        return SERVICE_CODE_INDIVIDUAL.equals(serviceCode)
+                ? individualUtil.searchIndividualIds(referenceIds, tenantId, requestInfo)
+                : organisationUtil.searchOrganisationIds(referenceIds, tenantId, requestInfo);
+    }
+
+    private static boolean matches(String filter, String value) {
+        return !StringUtils.hasText(filter) || filter.equals(value);
+    }
+
+    private record ReferenceKey(String tenantId, String serviceCode, String referenceId) {
+    }
+
+    private record ExistenceExpiry(long positiveTtlNanos, long negativeTtlNanos) implements Expiry<ReferenceKey, Boolean> {
+
+        @Override
+        public long expireAfterCreate(ReferenceKey key, Boolean exists, long currentTime) {
+            return Boolean.TRUE.equals(exists) ? positiveTtlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(ReferenceKey key, Boolean exists, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, exists, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ReferenceKey key, Boolean exists, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -5,8 +5,8 @@ import org.egov.common.contract.models.RequestInfoWrapper;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.config.BankAccountServiceConfiguration;
 import org.egov.tracer.model.CustomException;
-import org.egov.util.IndividualUtil;
-import org.egov.util.OrganisationUtil;
+import org.egov.util.CursorUtil;
+import org.egov.util.ReferenceIdCache;
 import org.egov.web.models.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -14,24 +14,30 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.egov.util.ReferenceIdCache.SERVICE_CODE_INDIVIDUAL;
+import static org.egov.util.ReferenceIdCache.SERVICE_CODE_ORGANISATION;
+
 
 @Component
 @Slf4j
 public class BankAccountValidator {
 
     private final BankAccountServiceConfiguration configuration;
-    private final IndividualUtil individualUtil;
-    private final OrganisationUtil organisationUtil;
+    private final ReferenceIdCache referenceIdCache;
 
     @Autowired
     public BankAccountValidator(BankAccountServiceConfiguration configuration,
-                               IndividualUtil individualUtil,
-                               OrganisationUtil organisationUtil) {
+                               ReferenceIdCache referenceIdCache) {
         this.configuration = configuration;
-        this.individualUtil = individualUtil;
-        this.organisationUtil = organisationUtil;
+        this.referenceIdCache = referenceIdCache;
     }
 
     /**
@@ -248,32 +254,80 @@ public class BankAccountValidator {
         if (criteria.getLimit() != null && criteria.getLimit() > configuration.getMaxLimit()) {
             errorMap.put("SEARCH.LIMIT", "Search limit cannot exceed " + configuration.getMaxLimit());
         }
+
+        if (StringUtils.hasText(criteria.getCursor())) {
+            try {
+                CursorUtil.decode(criteria.getCursor());
+            } catch (CustomException e) {
+                errorMap.put("SEARCH.CURSOR", "Invalid continuation cursor");
+            }
+        }
     }
 
+    /**
+     * Validates reference IDs with one search per (serviceCode, tenantId) group carrying all the IDs of
+     * the group. Groups are searched concurrently and the results are mapped back to per-account errors.
+     */
     private void validateReferenceIds(List<BankAccount> bankAccounts, 
                                      RequestInfo requestInfo, 
                                      Map<String, String> errorMap) {
+        if (CollectionUtils.isEmpty(bankAccounts)) {
+            return;
+        }
+
+        Map<ReferenceGroup, Set<String>> referenceIdsByGroup = new LinkedHashMap<>();
         for (BankAccount bankAccount : bankAccounts) {
-            if ("IND".equals(bankAccount.getServiceCode())) {
-                // Validate individual reference ID
-                if (!individualUtil.validateIndividualId(bankAccount.getReferenceId(), 
-                                                        bankAccount.getTenantId(), 
-                                                        requestInfo)) {
-                    errorMap.put("REFERENCE_ID.INDIVIDUAL", 
-                               "Invalid individual reference ID: " + bankAccount.getReferenceId());
-                }
-            } else if ("ORG".equals(bankAccount.getServiceCode())) {
-                // Validate organization reference ID
-                if (!organisationUtil.validateOrganisationId(bankAccount.getReferenceId(), 
-                                                            bankAccount.getTenantId(), 
-                                                            requestInfo)) {
-                    errorMap.put("REFERENCE_ID.ORGANIZATION", 
-                               "Invalid organization reference ID: " + bankAccount.getReferenceId());
-                }
+            if (bankAccount == null || !isValidatedServiceCode(bankAccount.getServiceCode())
+                    || !StringUtils.hasText(bankAccount.getTenantId()) || !StringUtils.hasText(bankAccount.getReferenceId())) {
+                continue;
+            }
+            referenceIdsByGroup.computeIfAbsent(new ReferenceGroup(bankAccount.getServiceCode(), bankAccount.getTenantId()),
+                    group -> new LinkedHashSet<>()).add(bankAccount.getReferenceId());
+        }
+
+        Map<ReferenceGroup, CompletableFuture<Set<String>>> lookups = new LinkedHashMap<>();
+        referenceIdsByGroup.forEach((group, referenceIds) -> lookups.put(group,
+                referenceIdCache.getExistingIds(group.serviceCode(), group.tenantId(), referenceIds, requestInfo)));
+
+        Map<ReferenceGroup, Set<String>> existingIdsByGroup = new HashMap<>();
+        lookups.forEach((group, lookup) -> {
+            try {
+                existingIdsByGroup.put(group, lookup.join());
+            } catch (CompletionException e) {
+                log.error("Reference ID lookup failed for {} in tenant: {}", group.serviceCode(), group.tenantId(), e.getCause());
+                errorMap.put(SERVICE_CODE_INDIVIDUAL.equals(group.serviceCode()) ? "REFERENCE_ID.INDIVIDUAL" : "REFERENCE_ID.ORGANIZATION",
+                        e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            }
+        });
+
+        for (int i = 0; i < bankAccounts.size(); i++) {
+            BankAccount bankAccount = bankAccounts.get(i);
+            if (bankAccount == null || !isValidatedServiceCode(bankAccount.getServiceCode())) {
+                continue;
+            }
+
+            Set<String> existingIds = existingIdsByGroup.get(new ReferenceGroup(bankAccount.getServiceCode(), bankAccount.getTenantId()));
+            if (existingIds == null || existingIds.contains(bankAccount.getReferenceId())) {
+                continue;
+            }
+
+            if (SERVICE_CODE_INDIVIDUAL.equals(bankAccount.getServiceCode())) {
+                errorMap.put("BANK_ACCOUNT[" + i + "].REFERENCE_ID",
+                           "Invalid individual reference ID: " + bankAccount.getReferenceId());
+            } else {
+                errorMap.put("BANK_ACCOUNT[" + i + "].REFERENCE_ID",
+                           "Invalid organization reference ID: " + bankAccount.getReferenceId());
             }
         }
     }
 
+    private boolean isValidatedServiceCode(String serviceCode) {
+        return SERVICE_CODE_INDIVIDUAL.equals(serviceCode) || SERVICE_CODE_ORGANISATION.equals(serviceCode);
+    }
+
+    private record ReferenceGroup(String serviceCode, String tenantId) {
+    }
+
     private boolean isValidBranchIdentifierType(String type) {
         return "IFSC".equals(type) || "SWIFT".equals(type);
     }
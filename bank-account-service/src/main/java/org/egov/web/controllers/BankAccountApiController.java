@@ -9,9 +9,12 @@ import org.egov.util.ResponseInfoCreator;
 import org.egov.web.models.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -60,17 +63,36 @@ public class BankAccountApiController {
             @Valid @ModelAttribute BankAccountSearchCriteria searchCriteria, 
             @Valid @RequestBody RequestInfoWrapper requestInfoWrapper) {
         
-        List<BankAccount> bankAccounts = bankAccountService.searchBankAccount(requestInfoWrapper, searchCriteria);
+        BankAccountSearchResult result = bankAccountService.searchBankAccount(requestInfoWrapper, searchCriteria);
         ResponseInfo responseInfo = responseInfoCreator.createResponseInfoFromRequestInfo(requestInfoWrapper.getRequestInfo(), true);
+
+        Pagination pagination = Pagination.builder()
+                .limit(searchCriteria.getLimit().doubleValue())
+                .offSet(StringUtils.hasText(searchCriteria.getCursor()) ? null : searchCriteria.getOffset().doubleValue())
+                .totalCount(result.getTotalCount() != null ? result.getTotalCount().doubleValue() : null)
+                .nextCursor(result.getNextCursor())
+                .build();
         
         BankAccountResponse response = BankAccountResponse.builder()
                 .responseInfo(responseInfo)
-                .bankAccounts(bankAccounts)
+                .bankAccounts(result.getBankAccounts())
+                .pagination(pagination)
                 .build();
         
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @RequestMapping(value = "/_export", method = RequestMethod.POST, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBankAccounts(
+            @Valid @ModelAttribute BankAccountSearchCriteria searchCriteria,
+            @Valid @RequestBody RequestInfoWrapper requestInfoWrapper) {
+
+        StreamingResponseBody body = bankAccountService.exportBankAccounts(requestInfoWrapper, searchCriteria);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @RequestMapping(value = "/_update", method = RequestMethod.POST)
     public ResponseEntity<BankAccountResponse> updateBankAccount(
             @ApiParam(value = "Request object to update bank account in the system", required = true) 
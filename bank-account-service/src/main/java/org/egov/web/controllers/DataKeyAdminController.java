@@ -0,0 +1,38 @@
+package org.egov.web.controllers;
+
+import org.egov.util.LocalEnvelopeEncryptionEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Operational endpoint to rotate the data key of a tenant when the local encryption engine is enabled.
+ * New values are encrypted under the new key on every instance once their cached key version expires.
+ * Requests must carry the admin token, see {@link org.egov.config.AdminEndpointConfiguration}.
+ */
+@Controller
+@RequestMapping("/bankaccount/admin/v1")
+@ConditionalOnProperty(name = "bank.account.encryption.engine", havingValue = "local")
+public class DataKeyAdminController {
+
+    private final LocalEnvelopeEncryptionEngine encryptionEngine;
+
+    @Autowired
+    public DataKeyAdminController(LocalEnvelopeEncryptionEngine encryptionEngine) {
+        this.encryptionEngine = encryptionEngine;
+    }
+
+    @RequestMapping(value = "/datakey/_rotate", method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Integer>> rotateDataKey(@RequestParam("tenantId") String tenantId) {
+        int keyVersion = encryptionEngine.rotateDataKey(tenantId);
+        return new ResponseEntity<>(Collections.singletonMap("keyVersion", keyVersion), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,40 @@
+package org.egov.web.controllers;
+
+import org.egov.util.ReferenceIdCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Operational endpoint to evict reference ID cache entries, e.g. after an individual or organisation
+ * was created or deleted and must be picked up before its cache entry expires. Requests must carry the
+ * admin token, see {@link org.egov.config.AdminEndpointConfiguration}.
+ */
+@Controller
+@RequestMapping("/bankaccount/admin/v1")
+public class ReferenceCacheAdminController {
+
+    private final ReferenceIdCache referenceIdCache;
+
+    @Autowired
+    public ReferenceCacheAdminController(ReferenceIdCache referenceIdCache) {
+        this.referenceIdCache = referenceIdCache;
+    }
+
+    @RequestMapping(value = "/referencecache/_evict", method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Integer>> evictReferenceCache(
+            @RequestParam(value = "tenantId", required = false) String tenantId,
+            @RequestParam(value = "serviceCode", required = false) String serviceCode,
+            @RequestParam(value = "referenceId", required = false) String referenceId) {
+
+        int evicted = referenceIdCache.evict(tenantId, serviceCode, referenceId);
+        return new ResponseEntity<>(Collections.singletonMap("evicted", evicted), HttpStatus.OK);
+    }
+}
@@ -39,6 +39,12 @@ public class BankAccountDetails {
     @Size(min = 2, max = 64)
     private String accountNumber;
 
+    @JsonProperty("accountNumberIndex")
+    private String accountNumberIndex;
+
+    @JsonProperty("accountHolderNameTokens")
+    private List<BankAccountNameToken> accountHolderNameTokens;
+
     @JsonProperty("accountType")
     @Size(min = 2, max = 64)
     private String accountType;
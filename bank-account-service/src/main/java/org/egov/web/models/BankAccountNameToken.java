@@ -0,0 +1,24 @@
+package org.egov.web.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Blind index of one normalized word of an account holder name, stored so that names can be searched
+ * by word without decrypting them.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BankAccountNameToken {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("tokenIndex")
+    private String tokenIndex;
+}
@@ -1,5 +1,6 @@
 package org.egov.web.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -40,6 +41,13 @@ public class BankAccountSearchCriteria {
     @JsonProperty("accountNumber")
     private List<String> accountNumber;
 
+    // Blind indexes of accountNumber and of the words of accountHolderName, set by the service
+    @JsonIgnore
+    private List<String> accountNumberIndexes;
+
+    @JsonIgnore
+    private List<String> accountHolderNameTokenIndexes;
+
     @JsonProperty("isActive")
     private Boolean isActive;
 
@@ -54,4 +62,12 @@ public class BankAccountSearchCriteria {
 
     @JsonProperty("limit")
     private Integer limit;
+
+    // Continuation token from the previous page; when set, offset is ignored
+    @JsonProperty("cursor")
+    @Size(max = 1024)
+    private String cursor;
+
+    @JsonProperty("includeTotalCount")
+    private Boolean includeTotalCount;
 }
\ No newline at end of file
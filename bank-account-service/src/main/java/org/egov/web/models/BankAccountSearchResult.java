@@ -0,0 +1,25 @@
+package org.egov.web.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of bank accounts together with the paging details returned to the caller.
+ * totalCount is null when the count was not requested.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BankAccountSearchResult {
+
+    private List<BankAccount> bankAccounts;
+
+    private Integer totalCount;
+
+    private String nextCursor;
+}
@@ -29,6 +29,10 @@ public class Pagination {
     @Builder.Default
     private Double totalCount = null;
 
+    @JsonProperty("nextCursor")
+    @Builder.Default
+    private String nextCursor = null;
+
     @JsonProperty("sortBy")
     @Builder.Default
     private String sortBy = null;
@@ -0,0 +1,14 @@
+-- Per-tenant data keys of the local envelope encryption engine, wrapped by the keystore master key
+
+CREATE TABLE eg_bank_account_data_key(
+    tenant_id                    VARCHAR(64) NOT NULL,
+    key_version                  INTEGER NOT NULL,
+    wrapped_key                  VARCHAR(512) NOT NULL,
+    master_key_alias             VARCHAR(256) NOT NULL,
+    created_time                 BIGINT NOT NULL,
+    PRIMARY KEY (tenant_id, key_version)
+);
+
+-- Encrypted values are longer than their plain text
+ALTER TABLE eg_bank_account_detail ALTER COLUMN account_number TYPE VARCHAR(1024);
+ALTER TABLE eg_bank_account_detail ALTER COLUMN account_holder_name TYPE VARCHAR(1024);
@@ -0,0 +1,18 @@
+-- Blind indexes for searching encrypted account numbers and account holder names
+
+ALTER TABLE eg_bank_account_detail ADD COLUMN account_number_index VARCHAR(64);
+CREATE INDEX idx_bank_account_detail_account_number_index ON eg_bank_account_detail (account_number_index);
+
+-- One row per normalized word of the account holder name
+CREATE TABLE eg_bank_account_name_token(
+    id                           VARCHAR(256) PRIMARY KEY,
+    bank_account_detail_id       VARCHAR(256) NOT NULL,
+    token_index                  VARCHAR(64) NOT NULL,
+    FOREIGN KEY (bank_account_detail_id) REFERENCES eg_bank_account_detail (id)
+);
+CREATE INDEX idx_bank_account_name_token_index ON eg_bank_account_name_token (token_index, bank_account_detail_id);
+CREATE INDEX idx_bank_account_name_token_detail_id ON eg_bank_account_name_token (bank_account_detail_id);
+
+-- Plain text indexes no longer serve any query once the values are encrypted
+DROP INDEX IF EXISTS idx_bank_account_detail_account_number;
+DROP INDEX IF EXISTS idx_bank_account_detail_account_holder_name;
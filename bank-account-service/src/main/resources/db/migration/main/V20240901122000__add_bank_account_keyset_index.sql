@@ -0,0 +1,2 @@
+-- Supports paging bank accounts of a tenant by (created_time, id), newest first
+CREATE INDEX idx_bank_account_tenant_created_id ON eg_bank_account (tenant_id, created_time DESC, id DESC);
@@ -0,0 +1,3 @@
+-- Finds the details whose blind indexes still have to be backfilled
+CREATE INDEX IF NOT EXISTS idx_bank_account_detail_unindexed ON eg_bank_account_detail (id)
+    WHERE account_number_index IS NULL;
@@ -0,0 +1,189 @@
+package org.egov.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.egov.util.CursorUtil;
+import org.egov.web.models.BankAccountSearchCriteria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The SQL text and its parameters are built separately; these tests pin the parameter count and order of
+ * each query shape.
+ */
+public class BankAccountQueryBuilderTest {
+
+    private static final String TENANT_ID = "pb.amritsar";
+
+    private BankAccountQueryBuilder queryBuilder;
+
+    @BeforeEach
+    public void setUp() {
+        queryBuilder = new BankAccountQueryBuilder(new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void testPageQueryWithCursorSeeksInsteadOfOffset() {
+        BankAccountSearchCriteria criteria = BankAccountSearchCriteria.builder()
+                .tenantId(TENANT_ID)
+                .serviceCode("IND")
+                .cursor(CursorUtil.encode(1700000000000L, "account-9"))
+                .limit(10)
+                .offset(0)
+                .build();
+
+        List<Object> params = new ArrayList<>();
+        String query = queryBuilder.getBankAccountPageQuery(criteria, params, false);
+
+        assertTrue(query.contains("(ba.created_time, ba.id) < (?, ?)"));
+        assertFalse(query.contains("OFFSET"));
+        assertEquals(List.of(TENANT_ID, "IND", 1700000000000L, "account-9", 10), params);
+        assertEquals(placeholderCount(query), params.size());
+    }
+
+    @Test
+    public void testPageQueryWithoutCursorUsesOffset() {
+        BankAccountSearchCriteria criteria = BankAccountSearchCriteria.builder()
+                .tenantId(TENANT_ID)
+                .isActive(true)
+                .limit(10)
+                .offset(20)
+                .build();
+
+        List<Object> params = new ArrayList<>();
+        String query = queryBuilder.getBankAccountPageQuery(criteria, params, true);
+
+        assertTrue(query.contains("COUNT(*) OVER ()"));
+        assertTrue(query.endsWith("LIMIT ? OFFSET ?"));
+        assertEquals(List.of(TENANT_ID, true, 10, 20), params);
+        assertEquals(placeholderCount(query), params.size());
+    }
+
+    @Test
+    public void testNameTokensArePaddedAndBindTheirDistinctCount() {
+        BankAccountSearchCriteria criteria = BankAccountSearchCriteria.builder()
+                .tenantId(TENANT_ID)
+                .accountHolderName("John Kumar Singh")
+                .accountHolderNameTokenIndexes(List.of("t1", "t2", "t3"))
+                .isPrimary(true)
+                .limit(10)
+                .offset(0)
+                .build();
+
+        List<Object> params = new ArrayList<>();
+        String query = queryBuilder.getBankAccountPageQuery(criteria, params, false);
+
+        assertTrue(query.contains("nt.token_index IN (?, ?, ?, ?)"));
+        assertTrue(query.contains("HAVING COUNT(DISTINCT nt.token_index) = ?"));
+        // The last token repeats as padding, and the count is of the distinct tokens searched
+        assertEquals(List.of(TENANT_ID, "t1", "t2", "t3", "t3", 3, true, 10, 0), params);
+        assertEquals(placeholderCount(query), params.size());
+    }
+
+    @Test
+    public void testCountQueryWithNameTokensHasNoPagingParameters() {
+        BankAccountSearchCriteria criteria = BankAccountSearchCriteria.builder()
+                .tenantId(TENANT_ID)
+                .accountHolderName("John")
+                .accountHolderNameTokenIndexes(List.of("t1"))
+                .limit(10)
+                .offset(0)
+                .build();
+
+        List<Object> params = new ArrayList<>();
+        String query = queryBuilder.getBankAccountCountQuery(criteria, params);
+
+        assertTrue(query.startsWith("SELECT COUNT(*) FROM eg_bank_account ba"));
+        assertFalse(query.contains("LIMIT"));
+        assertEquals(List.of(TENANT_ID, "t1", 1), params);
+        assertEquals(placeholderCount(query), params.size());
+    }
+
+    @Test
+    public void testEmptyIndexListsMatchNothingWithoutParameters() {
+        // A name with no indexable word, and account numbers that all failed to index
+        BankAccountSearchCriteria criteria = BankAccountSearchCriteria.builder()
+                .tenantId(TENANT_ID)
+                .accountHolderName("   -")
+                .accountHolderNameTokenIndexes(Collections.emptyList())
+                .accountNumber(List.of("000"))
+                .accountNumberIndexes(Collections.emptyList())
+                .limit(10)
+                .offset(0)
+                .build();
+
+        List<Object> params = new ArrayList<>();
+        String query = queryBuilder.getBankAccountPageQuery(criteria, params, false);
+
+        assertTrue(query.contains("AND FALSE AND FALSE"));
+        assertFalse(query.contains("nt.token_index"));
+        assertFalse(query.contains("bad.account_number_index"));
+        assertEquals(List.of(TENANT_ID, 10, 0), params);
+        assertEquals(placeholderCount(query), params.size());
+    }
+
+    @Test
+    public void testInListsArePaddedToPowerOfTwo() {
+        BankAccountSearchCriteria criteria = BankAccountSearchCriteria.builder()
+                .tenantId(TENANT_ID)
+                .ids(List.of("id1", "id2", "id3"))
+                .referenceId(List.of("r1", "r2", "r3", "r4", "r5"))
+                .accountNumber(List.of("111", "222"))
+                .accountNumberIndexes(List.of("n1", "n2"))
+                .limit(10)
+                .offset(0)
+                .build();
+
+        List<Object> params = new ArrayList<>();
+        String query = queryBuilder.getBankAccountPageQuery(criteria, params, false);
+
+        assertTrue(query.contains("ba.id IN (?, ?, ?, ?)"));
+        assertTrue(query.contains("ba.reference_id IN (?, ?, ?, ?, ?, ?, ?, ?)"));
+        assertTrue(query.contains("bad.account_number_index IN (?, ?)"));
+        assertEquals(List.of(TENANT_ID,
+                "id1", "id2", "id3", "id3",
+                "r1", "r2", "r3", "r4", "r5", "r5", "r5", "r5",
+                "n1", "n2",
+                10, 0), params);
+        assertEquals(placeholderCount(query), params.size());
+    }
+
+    @Test
+    public void testListsOfTheSameBucketShareQueryText() {
+        BankAccountSearchCriteria three = BankAccountSearchCriteria.builder()
+                .tenantId(TENANT_ID)
+                .ids(List.of("id1", "id2", "id3"))
+                .build();
+        BankAccountSearchCriteria four = BankAccountSearchCriteria.builder()
+                .tenantId(TENANT_ID)
+                .ids(List.of("id1", "id2", "id3", "id4"))
+                .build();
+
+        List<Object> threeParams = new ArrayList<>();
+        List<Object> fourParams = new ArrayList<>();
+        String threeQuery = queryBuilder.getBankAccountCountQuery(three, threeParams);
+        String fourQuery = queryBuilder.getBankAccountCountQuery(four, fourParams);
+
+        assertSame(threeQuery, fourQuery);
+        assertEquals(List.of(TENANT_ID, "id1", "id2", "id3", "id3"), threeParams);
+        assertEquals(List.of(TENANT_ID, "id1", "id2", "id3", "id4"), fourParams);
+    }
+
+    private static int placeholderCount(String query) {
+        int count = 0;
+        for (int i = 0; i < query.length(); i++) {
+            if (query.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,148 @@
+package org.egov.util;
+
+import org.egov.config.BankAccountServiceConfiguration;
+import org.egov.repository.DataKeyRepository;
+import org.egov.repository.DataKeyRepository.WrappedDataKey;
+import org.egov.tracer.model.CustomException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LocalEnvelopeEncryptionEngineTest {
+
+    private static final String TENANT_ID = "pb.amritsar";
+    private static final String OTHER_TENANT_ID = "pb.jalandhar";
+    private static final String TYPE = "BankAccountNumberEncrypt";
+    private static final String MASTER_KEY_ALIAS = "bank-account-master";
+    private static final String KEYSTORE_PASSWORD = "changeit";
+
+    @TempDir
+    Path tempDir;
+
+    // Wrapped data keys by tenant and version, standing in for eg_bank_account_data_key
+    private final Map<String, WrappedDataKey> storedKeys = new HashMap<>();
+
+    private DataKeyRepository dataKeyRepository;
+    private BankAccountServiceConfiguration configuration;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Path keystorePath = tempDir.resolve("master.p12");
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setEntry(MASTER_KEY_ALIAS, new KeyStore.SecretKeyEntry(keyGenerator.generateKey()),
+                new KeyStore.PasswordProtection(KEYSTORE_PASSWORD.toCharArray()));
+        try (OutputStream outputStream = Files.newOutputStream(keystorePath)) {
+            keyStore.store(outputStream, KEYSTORE_PASSWORD.toCharArray());
+        }
+
+        configuration = new BankAccountServiceConfiguration();
+        configuration.setEncryptionKeystorePath(keystorePath.toString());
+        configuration.setEncryptionKeystorePassword(KEYSTORE_PASSWORD);
+        configuration.setEncryptionMasterKeyAlias(MASTER_KEY_ALIAS);
+        configuration.setEncryptionDataKeyCacheSeconds(300L);
+
+        dataKeyRepository = mock(DataKeyRepository.class);
+        when(dataKeyRepository.getKey(anyString(), anyInt())).thenAnswer(invocation ->
+                storedKeys.get(invocation.getArgument(0) + "|" + invocation.getArgument(1)));
+        when(dataKeyRepository.getLatestKey(anyString())).thenAnswer(invocation -> storedKeys.values().stream()
+                .filter(key -> key.tenantId().equals(invocation.getArgument(0)))
+                .max((a, b) -> Integer.compare(a.keyVersion(), b.keyVersion()))
+                .orElse(null));
+        when(dataKeyRepository.insertKey(any())).thenAnswer(invocation -> {
+            WrappedDataKey key = invocation.getArgument(0);
+            return storedKeys.putIfAbsent(key.tenantId() + "|" + key.keyVersion(), key) == null;
+        });
+    }
+
+    @Test
+    public void testEncryptDecryptRoundTrip() {
+        LocalEnvelopeEncryptionEngine engine = new LocalEnvelopeEncryptionEngine(dataKeyRepository, configuration);
+        List<String> plainTexts = Arrays.asList("1234567890", null, "Jos\u00e9 Kumar");
+
+        List<String> encrypted = engine.encrypt(plainTexts, TENANT_ID, TYPE);
+
+        assertEquals(3, encrypted.size());
+        assertTrue(encrypted.get(0).startsWith("ENC1:1:"));
+        assertEquals(null, encrypted.get(1));
+        assertEquals(plainTexts, engine.decrypt(encrypted, TENANT_ID, TYPE));
+        // A fresh IV is used per value
+        assertNotEquals(encrypted.get(0), engine.encrypt(List.of("1234567890"), TENANT_ID, TYPE).get(0));
+    }
+
+    @Test
+    public void testValuesWithoutPrefixAreReturnedUnchanged() {
+        LocalEnvelopeEncryptionEngine engine = new LocalEnvelopeEncryptionEngine(dataKeyRepository, configuration);
+
+        assertEquals(List.of("legacy plain text"), engine.decrypt(List.of("legacy plain text"), TENANT_ID, TYPE));
+    }
+
+    @Test
+    public void testOlderKeyVersionDecryptsAfterRotation() {
+        LocalEnvelopeEncryptionEngine engine = new LocalEnvelopeEncryptionEngine(dataKeyRepository, configuration);
+        String encryptedUnderFirst = engine.encrypt(List.of("1234567890"), TENANT_ID, TYPE).get(0);
+
+        assertEquals(2, engine.rotateDataKey(TENANT_ID));
+        String encryptedUnderSecond = engine.encrypt(List.of("1234567890"), TENANT_ID, TYPE).get(0);
+
+        assertTrue(encryptedUnderSecond.startsWith("ENC1:2:"));
+        assertEquals(List.of("1234567890", "1234567890"),
+                engine.decrypt(List.of(encryptedUnderFirst, encryptedUnderSecond), TENANT_ID, TYPE));
+
+        // Another instance has no key cached and unwraps the older version from the repository
+        LocalEnvelopeEncryptionEngine otherInstance = new LocalEnvelopeEncryptionEngine(dataKeyRepository, configuration);
+        assertEquals(List.of("1234567890"), otherInstance.decrypt(List.of(encryptedUnderFirst), TENANT_ID, TYPE));
+    }
+
+    @Test
+    public void testTamperedTagFailsDecryption() {
+        LocalEnvelopeEncryptionEngine engine = new LocalEnvelopeEncryptionEngine(dataKeyRepository, configuration);
+        String encrypted = engine.encrypt(List.of("1234567890"), TENANT_ID, TYPE).get(0);
+
+        int separator = encrypted.lastIndexOf(':');
+        byte[] sealed = Base64.getDecoder().decode(encrypted.substring(separator + 1));
+        sealed[sealed.length - 1] ^= 0x01;
+        String tampered = encrypted.substring(0, separator + 1) + Base64.getEncoder().encodeToString(sealed);
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> engine.decrypt(List.of(tampered), TENANT_ID, TYPE));
+        assertEquals("DECRYPTION_FAILED", exception.getCode());
+    }
+
+    @Test
+    public void testValueOfAnotherTenantFailsDecryption() {
+        LocalEnvelopeEncryptionEngine engine = new LocalEnvelopeEncryptionEngine(dataKeyRepository, configuration);
+        String encrypted = engine.encrypt(List.of("1234567890"), TENANT_ID, TYPE).get(0);
+
+        // Even under the same data key, the tenant bound into the ciphertext no longer matches
+        WrappedDataKey tenantKey = storedKeys.get(TENANT_ID + "|1");
+        when(dataKeyRepository.getKey(OTHER_TENANT_ID, 1)).thenReturn(tenantKey);
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> engine.decrypt(List.of(encrypted), OTHER_TENANT_ID, TYPE));
+        assertEquals("DECRYPTION_FAILED", exception.getCode());
+    }
+}
@@ -39,6 +39,47 @@ public class CertificateConfiguration {
     @Value("${certificate.kafka.revoke.topic}")
     private String revokeTopic;
 
+    @Value("${certificate.kafka.keyed.publish.enabled:false}")
+    private Boolean kafkaKeyedPublishEnabled;
+
+    @Value("${certificate.kafka.persisted.topic:certificate-persisted}")
+    private String persistedTopic;
+
+    // Pending creates merged into search and verification until persisted
+    @Value("${certificate.pending.enabled:true}")
+    private Boolean pendingEnabled;
+
+    @Value("${certificate.pending.max.size:10000}")
+    private Long pendingMaxSize;
+
+    @Value("${certificate.pending.ttl.seconds:30}")
+    private Long pendingTtlSeconds;
+
+    // Outbox of records whose Kafka send failed
+    @Value("${certificate.outbox.enabled:true}")
+    private Boolean outboxEnabled;
+
+    @Value("${certificate.outbox.relay.batch.size:100}")
+    private Integer outboxRelayBatchSize;
+
+    @Value("${certificate.outbox.relay.send.timeout.ms:30000}")
+    private Long outboxRelaySendTimeoutMs;
+
+    @Value("${certificate.outbox.relay.lease.ms:60000}")
+    private Long outboxRelayLeaseMs;
+
+    @Value("${certificate.outbox.backoff.initial.ms:1000}")
+    private Long outboxBackoffInitialMs;
+
+    @Value("${certificate.outbox.backoff.max.ms:300000}")
+    private Long outboxBackoffMaxMs;
+
+    @Value("${certificate.outbox.store.threads:2}")
+    private Integer outboxStoreThreads;
+
+    @Value("${certificate.outbox.store.queue.capacity:10000}")
+    private Integer outboxStoreQueueCapacity;
+
     // External Service URLs
     @Value("${egov.idgen.host}")
     private String idGenHost;
@@ -56,10 +97,25 @@ public class CertificateConfiguration {
     @Value("${certificate.search.max.limit}")
     private Integer maxSearchLimit;
 
+    @Value("${certificate.search.lazy.json.enabled:true}")
+    private Boolean searchLazyJsonEnabled;
+
+    @Value("${certificate.export.fetch.size:500}")
+    private Integer exportFetchSize;
+
+    @Value("${certificate.export.flush.rows:1000}")
+    private Integer exportFlushRows;
+
     // Certificate Service Specific Configuration
     @Value("${certificate.signature.algorithm}")
     private String defaultSignatureAlgorithm;
 
+    @Value("${certificate.signature.key.dir}")
+    private String signingKeyDirectory;
+
+    @Value("${certificate.signature.key.generate.missing:false}")
+    private Boolean signingKeyGenerateMissing;
+
     @Value("${certificate.default.proof.purpose}")
     private String defaultProofPurpose;
 
@@ -73,6 +129,35 @@ public class CertificateConfiguration {
     @Value("${certificate.idgen.format}")
     private String idGenFormat;
 
+    @Value("${certificate.idgen.pool.enabled:false}")
+    private Boolean idGenPoolEnabled;
+
+    @Value("${certificate.idgen.pool.block.size:100}")
+    private Integer idGenPoolBlockSize;
+
+    @Value("${certificate.idgen.pool.low.water.mark:20}")
+    private Integer idGenPoolLowWaterMark;
+
+    // User background refills of the ID pool are requested as, not tied to any client request
+    @Value("${certificate.idgen.pool.system.user.uuid:SYSTEM}")
+    private String idGenPoolSystemUserUuid;
+
+    @Value("${app.timezone:UTC}")
+    private String timeZone;
+
+    // Verification cache configuration
+    @Value("${certificate.verify.cache.enabled:true}")
+    private Boolean verifyCacheEnabled;
+
+    @Value("${certificate.verify.cache.max.size:10000}")
+    private Long verifyCacheMaxSize;
+
+    @Value("${certificate.verify.cache.ttl.seconds:60}")
+    private Long verifyCacheTtlSeconds;
+
+    @Value("${certificate.verify.bulk.max.size:500}")
+    private Integer maxBulkVerificationSize;
+
     // Timeout configurations
     @Value("${certificate.http.timeout.connect:30000}")
     private Integer httpConnectTimeout;
@@ -96,4 +181,8 @@ public class CertificateConfiguration {
     public static final String SORT_BY_EXPIRATION_DATE = "expirationDate";
     public static final String SORT_BY_STATUS = "status";
     public static final String SORT_BY_ISSUER = "issuer";
+
+    public static final String TOTAL_COUNT_NONE = "false";
+    public static final String TOTAL_COUNT_EXACT = "exact";
+    public static final String TOTAL_COUNT_ESTIMATE = "estimate";
 }
\ No newline at end of file
@@ -1,52 +1,158 @@
 package org.egov.certificate.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
 @EnableKafka
 public class KafkaConfig {
 
+    /**
+     * Persister errors that go away by themselves: lock conflicts, timeouts and the database being
+     * unreachable, including a connection that cannot be opened for a transaction. Any other error, such as
+     * a {@code DataIntegrityViolationException} or a {@code CustomException}, is not retried.
+     */
+    private static final List<Class<? extends Exception>> PERSISTER_RETRYABLE_EXCEPTIONS = List.of(
+            TransientDataAccessException.class,
+            DataAccessResourceFailureException.class,
+            RecoverableDataAccessException.class,
+            CannotCreateTransactionException.class);
+
     @Value("${kafka.config.bootstrap_server_config}")
     private String kafkaBootstrapServers;
 
     @Value("${spring.kafka.consumer.group-id}")
     private String consumerGroupId;
 
+    @Value("${certificate.kafka.producer.profiles:latency}")
+    private List<String> producerProfiles;
+
+    @Value("${certificate.kafka.producer.default.profile:latency}")
+    private String defaultProducerProfile;
+
+    @Value("#{${certificate.kafka.producer.topic.profiles:{:}}}")
+    private Map<String, String> topicProducerProfiles;
+
+    @Value("${certificate.persister.backoff.initial.ms:1000}")
+    private Long persisterBackoffInitialMs;
+
+    @Value("${certificate.persister.backoff.max.ms:60000}")
+    private Long persisterBackoffMaxMs;
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * Producer of the default profile. Producers report the Kafka client metrics, e.g. per-topic record
+     * send rates and batch sizes, to the meter registry.
+     */
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, Object> producerFactory(MeterRegistry meterRegistry) {
+        return buildProducerFactory(defaultProducerProfile, meterRegistry);
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    /**
+     * One template per producer profile; the default profile shares the {@code kafkaTemplate} bean.
+     */
+    @Bean
+    public KafkaProducerProfiles kafkaProducerProfiles(KafkaTemplate<String, Object> kafkaTemplate,
+                                                       MeterRegistry meterRegistry) {
+        Map<String, KafkaTemplate<String, Object>> templates = new LinkedHashMap<>();
+        templates.put(defaultProducerProfile, kafkaTemplate);
+        for (String profile : producerProfiles) {
+            if (!templates.containsKey(profile)) {
+                templates.put(profile, new KafkaTemplate<>(buildProducerFactory(profile, meterRegistry)));
+            }
+        }
+        return new KafkaProducerProfiles(templates, topicProducerProfiles, defaultProducerProfile);
+    }
+
+    /**
+     * Builds the producer of a profile from the {@code certificate.kafka.producer.profile.<profile>.*}
+     * properties, which carry the Kafka producer setting names. Unset values fall back to acks=all with
+     * idempotence and a small, uncompressed batch sent after 1 ms.
+     */
+    private DefaultKafkaProducerFactory<String, Object> buildProducerFactory(String profile, MeterRegistry meterRegistry) {
+        String prefix = "certificate.kafka.producer.profile." + profile + ".";
+
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaBootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
-        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
-        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
-        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 1);
-        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
-        return new DefaultKafkaProducerFactory<>(configProps);
-    }
+        configProps.put(ProducerConfig.ACKS_CONFIG, environment.getProperty(prefix + ProducerConfig.ACKS_CONFIG, "all"));
+        configProps.put(ProducerConfig.RETRIES_CONFIG,
+                environment.getProperty(prefix + ProducerConfig.RETRIES_CONFIG, Integer.class, 3));
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG,
+                environment.getProperty(prefix + ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, Boolean.class, true));
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION,
+                environment.getProperty(prefix + ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, Integer.class, 5));
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG,
+                environment.getProperty(prefix + ProducerConfig.COMPRESSION_TYPE_CONFIG, "none"));
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG,
+                environment.getProperty(prefix + ProducerConfig.BATCH_SIZE_CONFIG, Integer.class, 16384));
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG,
+                environment.getProperty(prefix + ProducerConfig.LINGER_MS_CONFIG, Integer.class, 1));
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG,
+                environment.getProperty(prefix + ProducerConfig.BUFFER_MEMORY_CONFIG, Long.class, 33554432L));
+        configProps.put(ProducerConfig.CLIENT_ID_CONFIG, "certificate-service-" + profile);
 
-    @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
     }
 
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(consumerProperties());
+    }
+
+    /**
+     * Consumer of the in-service persister. Its value deserializer is wrapped so that a record that cannot
+     * be deserialized reaches the listener with a null value, and its original bytes in a header, instead
+     * of failing every poll of its partition.
+     */
+    private ConsumerFactory<String, Object> batchConsumerFactory() {
+        Map<String, Object> props = consumerProperties();
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    private Map<String, Object> consumerProperties() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaBootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, consumerGroupId);
@@ -57,7 +163,7 @@ public class KafkaConfig {
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000);
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
-        return new DefaultKafkaConsumerFactory<>(props);
+        return props;
     }
 
     @Bean
@@ -68,4 +174,59 @@ public class KafkaConfig {
         factory.getContainerProperties().setPollTimeout(3000);
         return factory;
     }
-}
\ No newline at end of file
+
+    /**
+     * Batch listener factory of the in-service persister. Offsets are committed per poll after the
+     * listener returns. The listener reports a failed record by its index, so the records before it are
+     * committed. A record that fails on a transient error, e.g. while the database is down, is retried with
+     * an exponential backoff for as long as the error lasts, so no offset is committed for rows that were
+     * not written. Any other failure would repeat on every attempt, so the record is moved to
+     * {@code <topic>.DLT} and consumption goes on with the next one. That covers records that cannot be
+     * deserialized, which are published to the DLT with their original bytes, records that do not convert
+     * to a certificate request and records the database rejects, e.g. on a constraint violation.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setConcurrency(3);
+        factory.setBatchListener(true);
+
+        ExponentialBackOff backOff = new ExponentialBackOff(persisterBackoffInitialMs, 2.0);
+        backOff.setMaxInterval(persisterBackoffMaxMs);
+        // The original bytes of undeserializable records are published as they are, other values as JSON
+        DefaultKafkaProducerFactory<String, Object> bytesProducerFactory = buildProducerFactory(defaultProducerProfile,
+                meterRegistry).copyWithConfigurationOverride(Map.of(
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class,
+                ProducerConfig.CLIENT_ID_CONFIG, "certificate-service-dlt"));
+        Map<Class<?>, KafkaOperations<?, ?>> deadLetterTemplates = new LinkedHashMap<>();
+        deadLetterTemplates.put(byte[].class, new KafkaTemplate<>(bytesProducerFactory));
+        deadLetterTemplates.put(Object.class, kafkaTemplate);
+        // A negative partition lets the producer pick one, whatever the partition count of the DLT
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterTemplates,
+                (record, exception) -> new TopicPartition(record.topic() + ".DLT", -1));
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        errorHandler.defaultFalse();
+        PERSISTER_RETRYABLE_EXCEPTIONS.forEach(errorHandler::addRetryableExceptions);
+        factory.setCommonErrorHandler(errorHandler);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setPollTimeout(3000);
+        return factory;
+    }
+
+    /**
+     * Whether the persister error handler retries the given error, which it classifies by the exception
+     * and its causes.
+     */
+    public static boolean isPersisterRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Exception> type : PERSISTER_RETRYABLE_EXCEPTIONS) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
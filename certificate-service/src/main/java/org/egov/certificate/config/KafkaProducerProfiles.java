@@ -0,0 +1,58 @@
+package org.egov.certificate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+
+/**
+ * Kafka templates of the named producer profiles, e.g. latency and throughput, and the profile each
+ * topic is published with. Topics without a profile of their own use the default profile.
+ */
+@Slf4j
+public class KafkaProducerProfiles implements DisposableBean {
+
+    private final Map<String, KafkaTemplate<String, Object>> templates;
+    private final Map<String, String> topicProfiles;
+    private final String defaultProfile;
+
+    public KafkaProducerProfiles(Map<String, KafkaTemplate<String, Object>> templates,
+                                 Map<String, String> topicProfiles, String defaultProfile) {
+        if (!templates.containsKey(defaultProfile)) {
+            throw new IllegalStateException("Unknown default Kafka producer profile: " + defaultProfile);
+        }
+        topicProfiles.forEach((topic, profile) -> {
+            if (!templates.containsKey(profile)) {
+                throw new IllegalStateException("Unknown Kafka producer profile " + profile + " for topic " + topic);
+            }
+        });
+
+        this.templates = templates;
+        this.topicProfiles = topicProfiles;
+        this.defaultProfile = defaultProfile;
+        log.info("Kafka producer profiles: {}, default: {}, per topic: {}", templates.keySet(), defaultProfile, topicProfiles);
+    }
+
+    public KafkaTemplate<String, Object> getTemplate(String topic) {
+        return templates.get(getProfile(topic));
+    }
+
+    public String getProfile(String topic) {
+        return topicProfiles.getOrDefault(topic, defaultProfile);
+    }
+
+    /**
+     * Closes the producers of the profiles other than the default one, whose factory is a bean of its own.
+     */
+    @Override
+    public void destroy() {
+        templates.forEach((profile, template) -> {
+            if (!profile.equals(defaultProfile)
+                    && template.getProducerFactory() instanceof DefaultKafkaProducerFactory<String, Object> factory) {
+                factory.destroy();
+            }
+        });
+    }
+}
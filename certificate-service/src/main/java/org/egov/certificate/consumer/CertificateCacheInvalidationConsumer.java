@@ -0,0 +1,38 @@
+package org.egov.certificate.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.egov.certificate.repository.CertificateCache;
+import org.egov.certificate.web.models.CertificateRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts updated and revoked certificates from the verification cache of this instance. Every instance
+ * joins with its own consumer group so that each one sees every event, starting from the latest offset.
+ */
+@Component
+@Slf4j
+public class CertificateCacheInvalidationConsumer {
+
+    @Autowired
+    private CertificateCache certificateCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = {"${certificate.kafka.update.topic}", "${certificate.kafka.revoke.topic}"},
+            groupId = "${spring.kafka.consumer.group-id}-cache-#{T(java.util.UUID).randomUUID().toString()}",
+            properties = {"auto.offset.reset=latest"})
+    public void listen(ConsumerRecord<String, Object> record) {
+        try {
+            CertificateRequest certificateRequest = objectMapper.convertValue(record.value(), CertificateRequest.class);
+            certificateCache.invalidate(certificateRequest.getCertificates());
+        } catch (Exception e) {
+            log.error("Failed to evict certificates from the verification cache for topic: {}", record.topic(), e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.egov.certificate.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.egov.certificate.config.CertificateConfiguration;
+import org.egov.certificate.config.KafkaConfig;
+import org.egov.certificate.repository.CertificatePersisterRepository;
+import org.egov.certificate.service.CertificateKafkaProducer;
+import org.egov.certificate.web.models.Certificate;
+import org.egov.certificate.web.models.CertificateRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-service alternative to the DIGIT persister for the create, update and revoke topics. Each poll is
+ * written in one transaction, in the order of its records: consecutive records of the same topic are
+ * applied as one JDBC batch per statement, so a revocation followed by an update of the same certificate
+ * is not undone by applying updates first. Offsets are committed after the listener returns, i.e. after
+ * the database commit. Persisted creates are then confirmed on the persisted topic, which evicts them from
+ * the pending certificates of every instance.
+ * <p>
+ * A record that fails is reported to the error handler by its index, see {@link KafkaConfig}: the records
+ * before it are written and committed, the failing record is retried while the error is transient and
+ * moved to {@code <topic>.DLT} otherwise, and the records after it are consumed again. Records are all
+ * converted before anything is written, and when the batch write fails on a lasting error the poll is
+ * written again one record per transaction to find the record at fault.
+ * <p>
+ * Only enable it once the external persister no longer consumes these topics.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "certificate.persister.enabled", havingValue = "true")
+public class CertificatePersisterConsumer {
+
+    private static final String BATCH_METRIC = "certificate.persister.batch";
+
+    @Autowired
+    private CertificatePersisterRepository persisterRepository;
+
+    @Autowired
+    private CertificateConfiguration configuration;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CertificateKafkaProducer certificateKafkaProducer;
+
+    @KafkaListener(
+            topics = {"${certificate.kafka.create.topic}", "${certificate.kafka.update.topic}", "${certificate.kafka.revoke.topic}"},
+            groupId = "${certificate.persister.group.id}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void listen(List<ConsumerRecord<String, Object>> records) {
+        // Entries are in poll order, entry i being record i; conversion stops at the first unreadable record
+        List<Entry> entries = new ArrayList<>(records.size());
+        BatchListenerFailedException unreadable = null;
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, Object> record = records.get(i);
+            try {
+                entries.add(new Entry(operationOf(record.topic()), convert(record)));
+            } catch (Exception e) {
+                unreadable = new BatchListenerFailedException(
+                        "Unreadable certificate record " + describe(record), e, i);
+                break;
+            }
+        }
+
+        BatchListenerFailedException failure = write(records, entries);
+        List<Entry> written = failure == null ? entries : entries.subList(0, failure.getIndex());
+
+        List<Certificate> created = new ArrayList<>();
+        int updated = 0;
+        int revoked = 0;
+        for (Entry entry : written) {
+            switch (entry.operation()) {
+                case CREATE -> created.addAll(entry.certificates());
+                case UPDATE -> updated += entry.certificates().size();
+                case REVOKE -> revoked += entry.certificates().size();
+            }
+        }
+        if (!created.isEmpty()) {
+            confirmPersisted(created);
+        }
+        log.info("Persisted {} of {} records: {} created, {} updated and {} revoked certificates",
+                written.size(), records.size(), created.size(), updated, revoked);
+
+        if (failure != null) {
+            throw failure;
+        }
+        if (unreadable != null) {
+            throw unreadable;
+        }
+    }
+
+    private List<Certificate> convert(ConsumerRecord<String, Object> record) {
+        // The error handling deserializer leaves the value null when it cannot be deserialized
+        if (record.value() == null) {
+            throw new IllegalArgumentException("Record value could not be deserialized");
+        }
+        List<Certificate> certificates = objectMapper.convertValue(record.value(), CertificateRequest.class)
+                .getCertificates();
+        return certificates != null ? certificates : List.of();
+    }
+
+    /**
+     * Writes the entries in one transaction. If that fails on an error that is not transient, they are
+     * written again one per transaction until the entry at fault. Returns the failure to report for the
+     * first entry not written, or null once all are written.
+     */
+    private BatchListenerFailedException write(List<ConsumerRecord<String, Object>> records, List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return null;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Run run : runsOf(entries)) {
+                    apply(run.operation(), run.certificates());
+                }
+            });
+            return null;
+        } catch (RuntimeException e) {
+            if (KafkaConfig.isPersisterRetryable(e)) {
+                // Nothing was written; the whole poll is retried from its first record
+                return new BatchListenerFailedException("Failed to write certificate records", e, 0);
+            }
+            log.warn("Failed to write {} records in one transaction, writing them one at a time", entries.size(), e);
+        } finally {
+            sample.stop(meterRegistry.timer(BATCH_METRIC));
+        }
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(entry.operation(), entry.certificates()));
+            } catch (RuntimeException e) {
+                return new BatchListenerFailedException(
+                        "Failed to write certificate record " + describe(records.get(i)), e, i);
+            }
+        }
+        return null;
+    }
+
+    private void apply(Operation operation, List<Certificate> certificates) {
+        if (certificates.isEmpty()) {
+            return;
+        }
+        switch (operation) {
+            case CREATE -> persisterRepository.saveCertificates(certificates);
+            case UPDATE -> persisterRepository.updateCertificates(certificates);
+            case REVOKE -> persisterRepository.revokeCertificates(certificates);
+        }
+    }
+
+    /**
+     * Groups consecutive entries with the same operation, in poll order.
+     */
+    private static List<Run> runsOf(List<Entry> entries) {
+        List<Run> runs = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (runs.isEmpty() || runs.get(runs.size() - 1).operation() != entry.operation()) {
+                runs.add(new Run(entry.operation(), new ArrayList<>()));
+            }
+            runs.get(runs.size() - 1).certificates().addAll(entry.certificates());
+        }
+        return runs;
+    }
+
+    private static String describe(ConsumerRecord<?, ?> record) {
+        return record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
+
+    private Operation operationOf(String topic) {
+        if (topic.equals(configuration.getCreateTopic())) {
+            return Operation.CREATE;
+        }
+        return topic.equals(configuration.getUpdateTopic()) ? Operation.UPDATE : Operation.REVOKE;
+    }
+
+    /**
+     * Publishes the IDs of the persisted certificates; a lost confirmation only leaves the pending
+     * entries to expire.
+     */
+    private void confirmPersisted(List<Certificate> certificates) {
+        List<Certificate> persisted = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            persisted.add(Certificate.builder().tenantId(certificate.getTenantId()).id(certificate.getId()).build());
+        }
+        try {
+            certificateKafkaProducer.push(configuration.getPersistedTopic(),
+                    CertificateRequest.builder().certificates(persisted).build());
+        } catch (Exception e) {
+            log.warn("Failed to confirm {} persisted certificates", persisted.size(), e);
+        }
+    }
+
+    private enum Operation {
+        CREATE, UPDATE, REVOKE
+    }
+
+    private record Entry(Operation operation, List<Certificate> certificates) {
+    }
+
+    private record Run(Operation operation, List<Certificate> certificates) {
+    }
+}
@@ -0,0 +1,41 @@
+package org.egov.certificate.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.egov.certificate.repository.PendingCertificates;
+import org.egov.certificate.web.models.CertificateRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts certificates confirmed as persisted by the in-service persister from the pending certificates
+ * of this instance. Like the cache invalidation consumer, every instance joins with its own consumer
+ * group so that each one sees every confirmation.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "certificate.persister.enabled", havingValue = "true")
+public class PersistedCertificateConsumer {
+
+    @Autowired
+    private PendingCertificates pendingCertificates;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = "${certificate.kafka.persisted.topic}",
+            groupId = "${spring.kafka.consumer.group-id}-pending-#{T(java.util.UUID).randomUUID().toString()}",
+            properties = {"auto.offset.reset=latest"})
+    public void listen(ConsumerRecord<String, Object> record) {
+        try {
+            CertificateRequest certificateRequest = objectMapper.convertValue(record.value(), CertificateRequest.class);
+            pendingCertificates.evict(certificateRequest.getCertificates());
+        } catch (Exception e) {
+            log.error("Failed to evict persisted certificates from the pending certificates", e);
+        }
+    }
+}
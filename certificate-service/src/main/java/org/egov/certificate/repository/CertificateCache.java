@@ -0,0 +1,118 @@
+package org.egov.certificate.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.certificate.config.CertificateConfiguration;
+import org.egov.certificate.web.models.Certificate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded read-through cache of certificates keyed by (tenantId, certificateId), used by verification.
+ * Entries are evicted when a certificate is updated or revoked and in any case expire after the
+ * configured TTL, which bounds how long a changed certificate can be served stale.
+ */
+@Component
+@Slf4j
+public class CertificateCache {
+
+    private static final String CACHE_NAME = "certificate.verify.cache";
+
+    private final CertificateRepository certificateRepository;
+    private final CertificateConfiguration configuration;
+    private final Cache<String, Certificate> cache;
+
+    @Autowired
+    public CertificateCache(CertificateRepository certificateRepository, CertificateConfiguration configuration,
+                            MeterRegistry meterRegistry) {
+        this.certificateRepository = certificateRepository;
+        this.configuration = configuration;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(configuration.getVerifyCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(configuration.getVerifyCacheTtlSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Certificate getCertificateById(String tenantId, String certificateId) {
+        if (!isEnabled()) {
+            return certificateRepository.getCertificateById(tenantId, certificateId);
+        }
+
+        // Missing certificates are not cached, so a certificate created after a miss is found right away
+        return cache.get(buildKey(tenantId, certificateId),
+                key -> certificateRepository.getCertificateById(tenantId, certificateId));
+    }
+
+    /**
+     * Returns the cached certificates of a tenant and loads all the misses with a single repository call.
+     * The result follows the order of {@code certificateIds}; IDs that do not exist are left out.
+     */
+    public List<Certificate> getCertificatesByIds(String tenantId, List<String> certificateIds) {
+        if (!isEnabled()) {
+            return certificateRepository.getCertificatesByIds(tenantId, certificateIds);
+        }
+
+        Map<String, String> keysById = new LinkedHashMap<>();
+        for (String certificateId : certificateIds) {
+            keysById.put(certificateId, buildKey(tenantId, certificateId));
+        }
+
+        Map<String, Certificate> certificates = cache.getAll(keysById.values(), missingKeys -> {
+            List<String> missingIds = new ArrayList<>();
+            keysById.forEach((id, key) -> {
+                if (missingKeys.contains(key)) {
+                    missingIds.add(id);
+                }
+            });
+
+            Map<String, Certificate> loaded = new LinkedHashMap<>();
+            for (Certificate certificate : certificateRepository.getCertificatesByIds(tenantId, missingIds)) {
+                loaded.put(buildKey(tenantId, certificate.getId()), certificate);
+            }
+            return loaded;
+        });
+
+        List<Certificate> result = new ArrayList<>(certificates.size());
+        for (String key : keysById.values()) {
+            Certificate certificate = certificates.get(key);
+            if (certificate != null) {
+                result.add(certificate);
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(String tenantId, String certificateId) {
+        cache.invalidate(buildKey(tenantId, certificateId));
+    }
+
+    public void invalidate(List<Certificate> certificates) {
+        if (certificates == null) {
+            return;
+        }
+
+        for (Certificate certificate : certificates) {
+            invalidate(certificate.getTenantId(), certificate.getId());
+        }
+        log.debug("Evicted {} certificates from the verification cache", certificates.size());
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(configuration.getVerifyCacheEnabled());
+    }
+
+    private static String buildKey(String tenantId, String certificateId) {
+        return tenantId + "|" + certificateId;
+    }
+}
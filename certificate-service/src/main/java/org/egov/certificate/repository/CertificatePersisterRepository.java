@@ -0,0 +1,146 @@
+package org.egov.certificate.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.egov.certificate.web.models.Certificate;
+import org.egov.certificate.web.models.Issuer;
+import org.egov.certificate.web.models.Proof;
+import org.egov.common.contract.models.AuditDetails;
+import org.egov.tracer.model.CustomException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batched writes of the in-service persister, mirroring the queries of certificate-persister.yml. Each
+ * method sends one JDBC batch per statement; with {@code reWriteBatchedInserts} the driver folds insert
+ * batches into multi-row inserts. Inserts skip certificates that already exist, so that a batch replayed
+ * after a failed offset commit does not fail.
+ */
+@Repository
+public class CertificatePersisterRepository {
+
+    private static final String INSERT_CERTIFICATE_QUERY = "INSERT INTO eg_certificate(id, tenant_id, context,"
+            + " certificate_type, issuer_id, issuer_name, issuer_type, subject_id, issued_at, expires_at, status,"
+            + " credential_subject, additional_details, created_by, created_time, last_modified_by, last_modified_time)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), CAST(? AS jsonb), ?, ?, ?, ?)"
+            + " ON CONFLICT (id) DO NOTHING";
+
+    private static final String INSERT_PROOF_QUERY = "INSERT INTO eg_certificate_proof(id, certificate_id, proof_type,"
+            + " created_at, proof_purpose, verification_method, signature_value, additional_details)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb)) ON CONFLICT (id) DO NOTHING";
+
+    private static final String UPDATE_CERTIFICATE_QUERY = "UPDATE eg_certificate SET context=?, certificate_type=?,"
+            + " issuer_id=?, issuer_name=?, issuer_type=?, subject_id=?, issued_at=?, expires_at=?, status=?,"
+            + " credential_subject=CAST(? AS jsonb), additional_details=CAST(? AS jsonb), last_modified_by=?,"
+            + " last_modified_time=? WHERE id=? AND tenant_id=?";
+
+    private static final String UPDATE_PROOF_QUERY = "UPDATE eg_certificate_proof SET proof_type=?, created_at=?,"
+            + " proof_purpose=?, verification_method=?, signature_value=?, additional_details=CAST(? AS jsonb)"
+            + " WHERE certificate_id=?";
+
+    private static final String REVOKE_CERTIFICATE_QUERY = "UPDATE eg_certificate SET status=?,"
+            + " additional_details=CAST(? AS jsonb), last_modified_by=?, last_modified_time=? WHERE id=? AND tenant_id=?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public void saveCertificates(List<Certificate> certificates) {
+        List<Object[]> certificateArgs = new ArrayList<>(certificates.size());
+        List<Object[]> proofArgs = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            Issuer issuer = issuer(certificate);
+            AuditDetails auditDetails = auditDetails(certificate);
+            certificateArgs.add(new Object[]{certificate.getId(), certificate.getTenantId(), certificate.getContext(),
+                    certificate.getType(), issuer.getId(), issuer.getName(), issuer.getType(), subjectId(certificate),
+                    certificate.getIssued(), certificate.getExpirationDate(), certificate.getStatus(),
+                    toJson(certificate.getCredentialSubject()), toJson(certificate.getAdditionalDetails()),
+                    auditDetails.getCreatedBy(), auditDetails.getCreatedTime(), auditDetails.getLastModifiedBy(),
+                    auditDetails.getLastModifiedTime()});
+
+            Proof proof = certificate.getProof();
+            if (proof != null) {
+                proofArgs.add(new Object[]{proof.getId(), certificate.getId(), proof.getType(), proof.getCreated(),
+                        proof.getProofPurpose(), proof.getVerificationMethod(), proof.getSignatureValue(),
+                        toJson(proof.getAdditionalDetails())});
+            }
+        }
+
+        batchUpdate(INSERT_CERTIFICATE_QUERY, certificateArgs);
+        batchUpdate(INSERT_PROOF_QUERY, proofArgs);
+    }
+
+    public void updateCertificates(List<Certificate> certificates) {
+        List<Object[]> certificateArgs = new ArrayList<>(certificates.size());
+        List<Object[]> proofArgs = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            Issuer issuer = issuer(certificate);
+            AuditDetails auditDetails = auditDetails(certificate);
+            certificateArgs.add(new Object[]{certificate.getContext(), certificate.getType(), issuer.getId(),
+                    issuer.getName(), issuer.getType(), subjectId(certificate), certificate.getIssued(),
+                    certificate.getExpirationDate(), certificate.getStatus(), toJson(certificate.getCredentialSubject()),
+                    toJson(certificate.getAdditionalDetails()), auditDetails.getLastModifiedBy(),
+                    auditDetails.getLastModifiedTime(), certificate.getId(), certificate.getTenantId()});
+
+            Proof proof = certificate.getProof();
+            if (proof != null) {
+                proofArgs.add(new Object[]{proof.getType(), proof.getCreated(), proof.getProofPurpose(),
+                        proof.getVerificationMethod(), proof.getSignatureValue(), toJson(proof.getAdditionalDetails()),
+                        certificate.getId()});
+            }
+        }
+
+        batchUpdate(UPDATE_CERTIFICATE_QUERY, certificateArgs);
+        batchUpdate(UPDATE_PROOF_QUERY, proofArgs);
+    }
+
+    public void revokeCertificates(List<Certificate> certificates) {
+        List<Object[]> certificateArgs = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            AuditDetails auditDetails = auditDetails(certificate);
+            certificateArgs.add(new Object[]{certificate.getStatus(), toJson(certificate.getAdditionalDetails()),
+                    auditDetails.getLastModifiedBy(), auditDetails.getLastModifiedTime(), certificate.getId(),
+                    certificate.getTenantId()});
+        }
+
+        batchUpdate(REVOKE_CERTIFICATE_QUERY, certificateArgs);
+    }
+
+    private void batchUpdate(String query, List<Object[]> batchArgs) {
+        if (!batchArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(query, batchArgs);
+        }
+    }
+
+    private String toJson(Map<String, Object> value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new CustomException("PERSIST_SERIALIZATION_FAILED", "Unable to serialize certificate JSON column");
+        }
+    }
+
+    private static Issuer issuer(Certificate certificate) {
+        return certificate.getIssuer() != null ? certificate.getIssuer() : new Issuer();
+    }
+
+    private static AuditDetails auditDetails(Certificate certificate) {
+        return certificate.getAuditDetails() != null ? certificate.getAuditDetails() : new AuditDetails();
+    }
+
+    private static String subjectId(Certificate certificate) {
+        Map<String, Object> credentialSubject = certificate.getCredentialSubject();
+        Object subjectId = credentialSubject != null ? credentialSubject.get("id") : null;
+        return subjectId != null ? subjectId.toString() : null;
+    }
+}
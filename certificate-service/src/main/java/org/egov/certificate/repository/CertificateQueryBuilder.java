@@ -1,5 +1,6 @@
 package org.egov.certificate.repository;
 
+import org.egov.certificate.util.CursorUtil;
 import org.egov.certificate.web.models.CertificateSearchCriteria;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
@@ -7,10 +8,14 @@ import org.springframework.util.ObjectUtils;
 
 import java.util.List;
 
+import static org.egov.certificate.config.CertificateConfiguration.SORT_BY_ISSUED;
+
 @Component
 public class CertificateQueryBuilder {
 
-    private static final String BASE_QUERY = """
+    private static final String PAGE_QUERY = "SELECT c.id{totalCount} FROM eg_certificate c";
+
+    private static final String SEARCH_QUERY = """
         SELECT 
             c.id, c.tenant_id, c.context, c.certificate_type, c.issuer_id, c.issuer_name, 
             c.issuer_type, c.subject_id, c.issued_at, c.expires_at, c.status, 
@@ -23,28 +28,108 @@ public class CertificateQueryBuilder {
         LEFT JOIN eg_certificate_proof p ON c.id = p.certificate_id
         """;
 
+    private static final String BASE_QUERY = SEARCH_QUERY + "WHERE c.tenant_id = ? AND c.id = ANY(?::varchar[])";
+
+    private static final String EXPORT_ORDER_BY = " ORDER BY c.issued_at, c.id";
+
+    private static final String TOTAL_COUNT_COLUMN = ", COUNT(*) OVER () AS total_count";
+
     private static final String COUNT_QUERY = """
         SELECT COUNT(DISTINCT c.id) 
         FROM eg_certificate c
         """;
 
-    private static final String ORDER_BY_QUERY = " ORDER BY c.{sortBy} {sortOrder}";
+    private static final String ESTIMATE_QUERY = "EXPLAIN (FORMAT JSON) SELECT c.id FROM eg_certificate c";
 
-    public String getCertificateSearchQuery(CertificateSearchCriteria criteria, List<Object> preparedStmtList) {
-        StringBuilder query = new StringBuilder(BASE_QUERY);
-        addWhereClause(criteria, preparedStmtList, query);
+    private static final String ORDER_BY_QUERY = " ORDER BY c.{sortBy} {sortOrder}, c.id {sortOrder}";
+
+    private static final String SEEK_PREDICATE = " (c.issued_at, c.id) {operator} (?, ?)";
+
+    private static final String ACTIVE_SUBJECT_DUPLICATE_QUERY = """
+        SELECT c.tenant_id, c.subject_id, c.certificate_type
+        FROM eg_certificate c
+        JOIN unnest(?::varchar[], ?::varchar[], ?::varchar[]) AS k(tenant_id, subject_id, certificate_type)
+          ON c.tenant_id = k.tenant_id
+         AND c.subject_id = k.subject_id
+         AND c.certificate_type = k.certificate_type
+        WHERE c.status = 'ACTIVE'
+        """;
+
+    /**
+     * Builds the first phase of a search: the page of matching certificate IDs in sort order. Only the id
+     * is selected, so the sort and LIMIT/OFFSET run on narrow rows; when {@code includeTotalCount} is set
+     * the number of matching certificates is carried along as a {@code total_count} window column.
+     */
+    public String getCertificatePageQuery(CertificateSearchCriteria criteria, List<Object> preparedStmtList,
+                                          boolean includeTotalCount) {
+        StringBuilder query = new StringBuilder(PAGE_QUERY.replace("{totalCount}", includeTotalCount ? TOTAL_COUNT_COLUMN : ""));
+        boolean isWhereAdded = addWhereClause(criteria, preparedStmtList, query);
+        addSeekPredicate(criteria, preparedStmtList, query, isWhereAdded);
         addOrderByClause(criteria, query);
         addLimitAndOffset(criteria, preparedStmtList, query);
         return query.toString();
     }
 
+    /**
+     * Builds the second phase of a search: the certificates and their proofs for a set of IDs, bound as
+     * a single array parameter. Rows come back unordered; callers restore the page order.
+     */
+    public String getCertificateSearchQuery(String tenantId, List<String> ids, List<Object> preparedStmtList) {
+        preparedStmtList.add(tenantId);
+        preparedStmtList.add(ids.toArray(new String[0]));
+        return BASE_QUERY;
+    }
+
+    /**
+     * Builds the export query: every matching certificate with its proof, without paging. Rows are
+     * ordered by (issued_at, id) so that the rows of a certificate are adjacent and the scan can follow
+     * the (tenant_id, issued_at, id) index.
+     */
+    public String getCertificateExportQuery(CertificateSearchCriteria criteria, List<Object> preparedStmtList) {
+        StringBuilder query = new StringBuilder(SEARCH_QUERY);
+        addWhereClause(criteria, preparedStmtList, query);
+        query.append(EXPORT_ORDER_BY);
+        return query.toString();
+    }
+
     public String getCertificateCountQuery(CertificateSearchCriteria criteria, List<Object> preparedStmtList) {
         StringBuilder query = new StringBuilder(COUNT_QUERY);
         addWhereClause(criteria, preparedStmtList, query);
         return query.toString();
     }
 
-    private void addWhereClause(CertificateSearchCriteria criteria, List<Object> preparedStmtList, StringBuilder query) {
+    /**
+     * Builds an EXPLAIN of the filtered certificate scan; the planner's row estimate is used as an
+     * approximate total count without touching the matching rows.
+     */
+    public String getCertificateEstimateQuery(CertificateSearchCriteria criteria, List<Object> preparedStmtList) {
+        StringBuilder query = new StringBuilder(ESTIMATE_QUERY);
+        addWhereClause(criteria, preparedStmtList, query);
+        return query.toString();
+    }
+
+    /**
+     * Builds a single query resolving every (tenantId, subjectId, certificateType) tuple against the
+     * active certificates. The tuples are bound as three parallel arrays and joined through unnest, so
+     * the SQL text stays the same regardless of how many certificates are in the request.
+     */
+    public String getActiveSubjectDuplicateQuery(List<String> tenantIds, List<String> subjectIds,
+                                                 List<String> certificateTypes, List<Object> preparedStmtList) {
+        preparedStmtList.add(tenantIds.toArray(new String[0]));
+        preparedStmtList.add(subjectIds.toArray(new String[0]));
+        preparedStmtList.add(certificateTypes.toArray(new String[0]));
+        return ACTIVE_SUBJECT_DUPLICATE_QUERY;
+    }
+
+    /**
+     * Returns true when the sort requested by the criteria can be served by keyset pagination,
+     * i.e. the rows are ordered by (issued_at, id).
+     */
+    public static boolean isKeysetSortable(CertificateSearchCriteria criteria) {
+        return ObjectUtils.isEmpty(criteria.getSortBy()) || SORT_BY_ISSUED.equals(criteria.getSortBy());
+    }
+
+    private boolean addWhereClause(CertificateSearchCriteria criteria, List<Object> preparedStmtList, StringBuilder query) {
         boolean isWhereAdded = false;
 
         if (!ObjectUtils.isEmpty(criteria.getTenantId())) {
@@ -56,29 +141,29 @@ public class CertificateQueryBuilder {
 
         if (!CollectionUtils.isEmpty(criteria.getIds())) {
             addClauseIfRequired(query, isWhereAdded);
-            query.append(" c.id IN (").append(createQuery(criteria.getIds())).append(")");
-            addToPreparedStatement(preparedStmtList, criteria.getIds());
+            query.append(" c.id = ANY(?::varchar[])");
+            addArrayToPreparedStatement(preparedStmtList, criteria.getIds());
             isWhereAdded = true;
         }
 
         if (!CollectionUtils.isEmpty(criteria.getIssuerIds())) {
             addClauseIfRequired(query, isWhereAdded);
-            query.append(" c.issuer_id IN (").append(createQuery(criteria.getIssuerIds())).append(")");
-            addToPreparedStatement(preparedStmtList, criteria.getIssuerIds());
+            query.append(" c.issuer_id = ANY(?::varchar[])");
+            addArrayToPreparedStatement(preparedStmtList, criteria.getIssuerIds());
             isWhereAdded = true;
         }
 
         if (!CollectionUtils.isEmpty(criteria.getSubjectIds())) {
             addClauseIfRequired(query, isWhereAdded);
-            query.append(" c.subject_id IN (").append(createQuery(criteria.getSubjectIds())).append(")");
-            addToPreparedStatement(preparedStmtList, criteria.getSubjectIds());
+            query.append(" c.subject_id = ANY(?::varchar[])");
+            addArrayToPreparedStatement(preparedStmtList, criteria.getSubjectIds());
             isWhereAdded = true;
         }
 
         if (!CollectionUtils.isEmpty(criteria.getCertificateTypes())) {
             addClauseIfRequired(query, isWhereAdded);
-            query.append(" c.certificate_type IN (").append(createQuery(criteria.getCertificateTypes())).append(")");
-            addToPreparedStatement(preparedStmtList, criteria.getCertificateTypes());
+            query.append(" c.certificate_type = ANY(?::varchar[])");
+            addArrayToPreparedStatement(preparedStmtList, criteria.getCertificateTypes());
             isWhereAdded = true;
         }
 
@@ -102,6 +187,25 @@ public class CertificateQueryBuilder {
             preparedStmtList.add(criteria.getToDate());
             isWhereAdded = true;
         }
+
+        return isWhereAdded;
+    }
+
+    /**
+     * Seeks past the last row of the previous page instead of skipping rows with OFFSET, so every page
+     * is an index range scan on (tenant_id, issued_at, id).
+     */
+    private void addSeekPredicate(CertificateSearchCriteria criteria, List<Object> preparedStmtList,
+                                  StringBuilder query, boolean isWhereAdded) {
+        if (ObjectUtils.isEmpty(criteria.getCursor())) {
+            return;
+        }
+
+        CursorUtil.Cursor cursor = CursorUtil.decode(criteria.getCursor());
+        addClauseIfRequired(query, isWhereAdded);
+        query.append(SEEK_PREDICATE.replace("{operator}", "ASC".equalsIgnoreCase(criteria.getSortOrder()) ? ">" : "<"));
+        preparedStmtList.add(cursor.getSortKey());
+        preparedStmtList.add(cursor.getId());
     }
 
     private void addOrderByClause(CertificateSearchCriteria criteria, StringBuilder query) {
@@ -134,8 +238,11 @@ public class CertificateQueryBuilder {
         query.append(" LIMIT ?");
         preparedStmtList.add(criteria.getLimit());
 
-        query.append(" OFFSET ?");
-        preparedStmtList.add(criteria.getOffset());
+        // The seek predicate already positions the page in cursor mode
+        if (ObjectUtils.isEmpty(criteria.getCursor())) {
+            query.append(" OFFSET ?");
+            preparedStmtList.add(criteria.getOffset());
+        }
     }
 
     private void addClauseIfRequired(StringBuilder query, boolean isWhereAdded) {
@@ -146,19 +253,7 @@ public class CertificateQueryBuilder {
         }
     }
 
-    private String createQuery(List<String> ids) {
-        StringBuilder builder = new StringBuilder();
-        int length = ids.size();
-        for (int i = 0; i < length; i++) {
-            builder.append(" ?");
-            if (i != length - 1) {
-                builder.append(",");
-            }
-        }
-        return builder.toString();
-    }
-
-    private void addToPreparedStatement(List<Object> preparedStmtList, List<String> ids) {
-        preparedStmtList.addAll(ids);
+    private void addArrayToPreparedStatement(List<Object> preparedStmtList, List<String> ids) {
+        preparedStmtList.add(ids.toArray(new String[0]));
     }
 }
\ No newline at end of file
@@ -1,14 +1,35 @@
 package org.egov.certificate.repository;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.egov.certificate.config.CertificateConfiguration;
 import org.egov.certificate.web.models.Certificate;
 import org.egov.certificate.web.models.CertificateSearchCriteria;
+import org.egov.certificate.web.models.CertificateSearchResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ObjectUtils;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.egov.certificate.config.CertificateConfiguration.TOTAL_COUNT_ESTIMATE;
+import static org.egov.certificate.config.CertificateConfiguration.TOTAL_COUNT_EXACT;
 
 @Repository
 @Slf4j
@@ -23,14 +44,63 @@ public class CertificateRepository {
     @Autowired
     private CertificateRowMapper rowMapper;
 
-    public List<Certificate> getCertificates(CertificateSearchCriteria searchCriteria) {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CertificateConfiguration configuration;
+
+    /**
+     * Runs a search in two phases: the page of matching IDs is selected first, then only those
+     * certificates are fetched with their proofs. This keeps LIMIT/OFFSET on certificate rows and avoids
+     * sorting full rows, JSONB included, that end up discarded.
+     * <p>
+     * An exact count is taken from the window column of the ID query; it falls back to a separate count
+     * query only in cursor mode, or when an offset past the end leaves no row to read it from.
+     */
+    public CertificateSearchResult searchCertificates(CertificateSearchCriteria searchCriteria) {
+        String countMode = searchCriteria.getIncludeTotalCount();
+        boolean cursorMode = !ObjectUtils.isEmpty(searchCriteria.getCursor());
+        boolean windowCount = TOTAL_COUNT_EXACT.equalsIgnoreCase(countMode) && !cursorMode;
+
+        AtomicReference<Integer> totalCount = new AtomicReference<>();
+        List<String> pageIds = getPageIds(searchCriteria, windowCount, totalCount);
+        List<Certificate> certificates = getCertificatesByIds(searchCriteria.getTenantId(), pageIds);
+
+        if (windowCount && totalCount.get() == null) {
+            totalCount.set(searchCriteria.getOffset() != null && searchCriteria.getOffset() > 0
+                    ? getCertificateCount(searchCriteria) : 0);
+        } else if (!windowCount && TOTAL_COUNT_EXACT.equalsIgnoreCase(countMode)) {
+            totalCount.set(getCertificateCount(searchCriteria));
+        } else if (TOTAL_COUNT_ESTIMATE.equalsIgnoreCase(countMode)) {
+            totalCount.set(getEstimatedCertificateCount(searchCriteria));
+        }
+
+        return CertificateSearchResult.builder()
+                .certificates(certificates)
+                .totalCount(totalCount.get())
+                .build();
+    }
+
+    private List<String> getPageIds(CertificateSearchCriteria searchCriteria, boolean windowCount,
+                                    AtomicReference<Integer> totalCount) {
         List<Object> preparedStmtList = new ArrayList<>();
-        String query = queryBuilder.getCertificateSearchQuery(searchCriteria, preparedStmtList);
-        
-        log.debug("Executing certificate search query: {}", query);
+        String query = queryBuilder.getCertificatePageQuery(searchCriteria, preparedStmtList, windowCount);
+
+        log.debug("Executing certificate page query: {}", query);
         log.debug("With parameters: {}", preparedStmtList);
-        
-        return jdbcTemplate.query(query, preparedStmtList.toArray(), rowMapper);
+
+        List<String> pageIds = new ArrayList<>();
+        jdbcTemplate.query(query, rs -> {
+            pageIds.add(rs.getString("id"));
+            if (windowCount && totalCount.get() == null) {
+                totalCount.set(rs.getInt("total_count"));
+            }
+        }, preparedStmtList.toArray());
+        return pageIds;
     }
 
     public Integer getCertificateCount(CertificateSearchCriteria searchCriteria) {
@@ -44,31 +114,86 @@ public class CertificateRepository {
         return count != null ? count : 0;
     }
 
-    public Certificate getCertificateById(String tenantId, String certificateId) {
-        CertificateSearchCriteria criteria = CertificateSearchCriteria.builder()
-                .tenantId(tenantId)
-                .ids(List.of(certificateId))
-                .limit(1)
-                .offset(0)
-                .build();
+    /**
+     * Returns the planner's row estimate for the search filters. It is cheap regardless of tenant size
+     * but only as accurate as the table statistics.
+     */
+    public Integer getEstimatedCertificateCount(CertificateSearchCriteria searchCriteria) {
+        List<Object> preparedStmtList = new ArrayList<>();
+        String query = queryBuilder.getCertificateEstimateQuery(searchCriteria, preparedStmtList);
 
-        List<Certificate> certificates = getCertificates(criteria);
+        log.debug("Executing certificate estimate query: {}", query);
+
+        String plan = jdbcTemplate.queryForObject(query, preparedStmtList.toArray(), String.class);
+        try {
+            JsonNode planRows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            return planRows.isMissingNode() ? null : (int) Math.min(planRows.asLong(), Integer.MAX_VALUE);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to parse query plan for count estimate", e);
+            return null;
+        }
+    }
+
+    /**
+     * Streams every certificate matching the filters to {@code consumer}, one at a time. Paging fields of
+     * the criteria are ignored. The query runs in a read-only transaction so that PostgreSQL uses a
+     * cursor and fetches {@code certificate.export.fetch.size} rows per round trip instead of loading
+     * the whole result. Returns the number of certificates streamed.
+     */
+    public int exportCertificates(CertificateSearchCriteria searchCriteria, Consumer<Certificate> consumer) {
+        List<Object> preparedStmtList = new ArrayList<>();
+        String query = queryBuilder.getCertificateExportQuery(searchCriteria, preparedStmtList);
+
+        log.debug("Executing certificate export query: {}", query);
+        log.debug("With parameters: {}", preparedStmtList);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Integer count = transactionTemplate.execute(status -> {
+            CertificateRowMapper.CertificateStreamer streamer = rowMapper.streamer(consumer);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(configuration.getExportFetchSize());
+                new ArgumentPreparedStatementSetter(preparedStmtList.toArray()).setValues(statement);
+                return statement;
+            }, streamer);
+            return streamer.finish();
+        });
+        return count != null ? count : 0;
+    }
+
+    public Certificate getCertificateById(String tenantId, String certificateId) {
+        List<Certificate> certificates = getCertificatesByIds(tenantId, List.of(certificateId));
         return certificates.isEmpty() ? null : certificates.get(0);
     }
 
+    /**
+     * Fetches certificates with their proofs by ID, returned in the order of {@code certificateIds}.
+     */
     public List<Certificate> getCertificatesByIds(String tenantId, List<String> certificateIds) {
         if (certificateIds == null || certificateIds.isEmpty()) {
             return new ArrayList<>();
         }
 
-        CertificateSearchCriteria criteria = CertificateSearchCriteria.builder()
-                .tenantId(tenantId)
-                .ids(certificateIds)
-                .limit(certificateIds.size())
-                .offset(0)
-                .build();
+        List<Object> preparedStmtList = new ArrayList<>();
+        String query = queryBuilder.getCertificateSearchQuery(tenantId, certificateIds, preparedStmtList);
+
+        log.debug("Executing certificate search query for {} ids", certificateIds.size());
 
-        return getCertificates(criteria);
+        Map<String, Certificate> certificatesById = new HashMap<>();
+        for (Certificate certificate : jdbcTemplate.query(query, preparedStmtList.toArray(), rowMapper)) {
+            certificatesById.put(certificate.getId(), certificate);
+        }
+
+        List<Certificate> certificates = new ArrayList<>(certificatesById.size());
+        for (String certificateId : new LinkedHashSet<>(certificateIds)) {
+            Certificate certificate = certificatesById.get(certificateId);
+            if (certificate != null) {
+                certificates.add(certificate);
+            }
+        }
+        return certificates;
     }
 
     public boolean existsCertificate(String tenantId, String certificateId) {
@@ -77,9 +202,30 @@ public class CertificateRepository {
         return count != null && count > 0;
     }
 
-    public boolean existsCertificateBySubjectId(String tenantId, String subjectId, String certificateType) {
-        String query = "SELECT COUNT(1) FROM eg_certificate WHERE tenant_id = ? AND subject_id = ? AND certificate_type = ? AND status = 'ACTIVE'";
-        Integer count = jdbcTemplate.queryForObject(query, new Object[]{tenantId, subjectId, certificateType}, Integer.class);
-        return count != null && count > 0;
+    /**
+     * Resolves all (tenantId, subjectId, certificateType) tuples in one round trip and returns the keys,
+     * built with {@link #buildSubjectKey}, of those that already have an ACTIVE certificate.
+     * The three lists are parallel: index i of each describes one tuple.
+     */
+    public Set<String> getActiveSubjectKeys(List<String> tenantIds, List<String> subjectIds, List<String> certificateTypes) {
+        Set<String> existingKeys = new HashSet<>();
+        if (tenantIds == null || tenantIds.isEmpty()) {
+            return existingKeys;
+        }
+
+        List<Object> preparedStmtList = new ArrayList<>();
+        String query = queryBuilder.getActiveSubjectDuplicateQuery(tenantIds, subjectIds, certificateTypes, preparedStmtList);
+
+        log.debug("Executing batch duplicate check for {} subjects", tenantIds.size());
+
+        jdbcTemplate.query(query, rs -> {
+            existingKeys.add(buildSubjectKey(rs.getString("tenant_id"), rs.getString("subject_id"),
+                    rs.getString("certificate_type")));
+        }, preparedStmtList.toArray());
+        return existingKeys;
+    }
+
+    public static String buildSubjectKey(String tenantId, String subjectId, String certificateType) {
+        return tenantId + "|" + subjectId + "|" + certificateType;
     }
-}
\ No newline at end of file
+}
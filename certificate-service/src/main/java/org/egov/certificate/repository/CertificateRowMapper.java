@@ -2,20 +2,25 @@ package org.egov.certificate.repository;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.egov.certificate.config.CertificateConfiguration;
+import org.egov.certificate.util.LazyJsonMap;
 import org.egov.certificate.web.models.Certificate;
 import org.egov.certificate.web.models.Issuer;
 import org.egov.certificate.web.models.Proof;
 import org.egov.common.contract.models.AuditDetails;
-import org.postgresql.util.PGobject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Component
 @Slf4j
@@ -24,6 +29,16 @@ public class CertificateRowMapper implements ResultSetExtractor<List<Certificate
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CertificateConfiguration configuration;
+
+    private ObjectReader jsonbReader;
+
+    @PostConstruct
+    public void initialize() {
+        jsonbReader = objectMapper.readerFor(new TypeReference<LinkedHashMap<String, Object>>() {});
+    }
+
     @Override
     public List<Certificate> extractData(ResultSet rs) throws SQLException, DataAccessException {
         Map<String, Certificate> certificateMap = new LinkedHashMap<>();
@@ -47,6 +62,15 @@ public class CertificateRowMapper implements ResultSetExtractor<List<Certificate
         return new ArrayList<>(certificateMap.values());
     }
 
+    /**
+     * Returns a row handler for results ordered by certificate, e.g. an export, that builds one
+     * certificate at a time and hands it to {@code consumer} once its rows have been read, instead of
+     * collecting the whole result.
+     */
+    public CertificateStreamer streamer(Consumer<Certificate> consumer) {
+        return new CertificateStreamer(consumer);
+    }
+
     private Certificate buildCertificate(ResultSet rs) throws SQLException {
         return Certificate.builder()
                 .id(rs.getString("id"))
@@ -91,18 +115,65 @@ public class CertificateRowMapper implements ResultSetExtractor<List<Certificate
                 .build();
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Reads a JSONB column straight into a map, or into a {@link LazyJsonMap} that keeps the raw JSON
+     * until it is read when lazy JSON is enabled.
+     */
     private Map<String, Object> parseJsonb(ResultSet rs, String columnName) throws SQLException {
+        String json = rs.getString(columnName);
+        if (json == null) {
+            return new HashMap<>();
+        }
+        if (Boolean.TRUE.equals(configuration.getSearchLazyJsonEnabled())) {
+            return new LazyJsonMap(json, jsonbReader);
+        }
+
         try {
-            PGobject pGobject = (PGobject) rs.getObject(columnName);
-            if (pGobject == null || pGobject.getValue() == null) {
-                return new HashMap<>();
-            }
-            
-            return objectMapper.readValue(pGobject.getValue(), new TypeReference<Map<String, Object>>() {});
+            return jsonbReader.readValue(json);
         } catch (Exception e) {
             log.error("Error parsing JSONB column {}: {}", columnName, e.getMessage());
             return new HashMap<>();
         }
     }
-}
\ No newline at end of file
+
+    public class CertificateStreamer implements RowCallbackHandler {
+
+        private final Consumer<Certificate> consumer;
+        private Certificate current;
+        private int count;
+
+        private CertificateStreamer(Consumer<Certificate> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String certificateId = rs.getString("id");
+            if (current == null || !current.getId().equals(certificateId)) {
+                emit();
+                current = buildCertificate(rs);
+            }
+
+            if (rs.getString("proof_id") != null && current.getProof() == null) {
+                current.setProof(buildProof(rs));
+            }
+        }
+
+        /**
+         * Hands over the last certificate; call once the query has completed. Returns the number of
+         * certificates streamed.
+         */
+        public int finish() {
+            emit();
+            return count;
+        }
+
+        private void emit() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+                count++;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.egov.certificate.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Durable store of Kafka records that could not be published. Unlike certificates these rows are
+ * written directly, since they exist precisely because Kafka was not reachable.
+ */
+@Repository
+public class OutboxRepository {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private static final String INSERT_QUERY = "INSERT INTO eg_certificate_outbox"
+            + " (topic, record_key, payload, attempts, next_attempt_time, last_error, created_time)"
+            + " VALUES (?, ?, ?, 0, ?, ?, ?)";
+
+    // Claims due rows by moving their next attempt to the end of the lease; rows another instance is
+    // claiming at the same time are skipped rather than waited for. Only the oldest row of a key is
+    // claimed, so the rows of one key are published one after the other, in order.
+    private static final String CLAIM_QUERY = "UPDATE eg_certificate_outbox SET next_attempt_time = ?"
+            + " WHERE id IN (SELECT r.id FROM eg_certificate_outbox r WHERE r.next_attempt_time <= ?"
+            + " AND (r.record_key IS NULL OR NOT EXISTS (SELECT 1 FROM eg_certificate_outbox e"
+            + " WHERE e.record_key = r.record_key AND e.id < r.id))"
+            + " ORDER BY r.next_attempt_time, r.id LIMIT ? FOR UPDATE OF r SKIP LOCKED)"
+            + " RETURNING id, topic, record_key, payload, attempts";
+
+    private static final String KEYS_QUERY = "SELECT DISTINCT record_key FROM eg_certificate_outbox"
+            + " WHERE record_key = ANY(?::varchar[])";
+
+    private static final String EXISTS_QUERY = "SELECT EXISTS (SELECT 1 FROM eg_certificate_outbox)";
+
+    private static final String DELETE_QUERY = "DELETE FROM eg_certificate_outbox WHERE id = ANY(?::bigint[])";
+
+    private static final String RESCHEDULE_QUERY = "UPDATE eg_certificate_outbox"
+            + " SET attempts = attempts + 1, next_attempt_time = ?, last_error = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Whether the outbox may hold records, so that publishing can skip the key lookup while it is empty.
+    // Stores on this instance set it at once; stores on other instances are seen on the next refresh.
+    private volatile boolean mayHaveRecords = true;
+
+    public void save(String topic, String key, String payload, String error) {
+        long now = System.currentTimeMillis();
+        mayHaveRecords = true;
+        jdbcTemplate.update(INSERT_QUERY, topic, key, payload, now, truncate(error), now);
+    }
+
+    /**
+     * Returns the keys among {@code keys} that have records in the outbox.
+     */
+    public Set<String> findKeys(Collection<String> keys) {
+        if (!mayHaveRecords || keys.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(KEYS_QUERY, String.class, (Object) keys.toArray(new String[0])));
+    }
+
+    /**
+     * Rechecks whether the outbox holds any record; called by the relay after each run.
+     */
+    public void refreshState() {
+        mayHaveRecords = Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_QUERY, Boolean.class));
+    }
+
+    /**
+     * Claims up to {@code limit} records due at {@code now} until {@code leaseUntil} and returns them,
+     * oldest first. The claim is a single statement, so no lock outlives it: other relays skip the records
+     * because they are no longer due, and pick them up again if the lease ends before they are deleted
+     * or rescheduled.
+     */
+    public List<OutboxRecord> claimDueRecords(long now, long leaseUntil, int limit) {
+        List<OutboxRecord> records = new ArrayList<>(jdbcTemplate.query(CLAIM_QUERY, (rs, rowNum) -> new OutboxRecord(
+                rs.getLong("id"), rs.getString("topic"), rs.getString("record_key"), rs.getString("payload"),
+                rs.getInt("attempts")), leaseUntil, now, limit));
+        // RETURNING does not keep the order of the subquery
+        records.sort(Comparator.comparingLong(OutboxRecord::id));
+        return records;
+    }
+
+    public void delete(List<Long> ids) {
+        if (!ids.isEmpty()) {
+            jdbcTemplate.update(DELETE_QUERY, (Object) ids.toArray(new Long[0]));
+        }
+    }
+
+    /**
+     * Counts a failed attempt of each record and schedules its next one.
+     */
+    public void reschedule(List<OutboxRetry> retries) {
+        List<Object[]> batchArgs = new ArrayList<>(retries.size());
+        for (OutboxRetry retry : retries) {
+            batchArgs.add(new Object[]{retry.nextAttemptTime(), truncate(retry.error()), retry.id()});
+        }
+        jdbcTemplate.batchUpdate(RESCHEDULE_QUERY, batchArgs);
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    public record OutboxRecord(long id, String topic, String key, String payload, int attempts) {
+    }
+
+    public record OutboxRetry(long id, long nextAttemptTime, String error) {
+    }
+}
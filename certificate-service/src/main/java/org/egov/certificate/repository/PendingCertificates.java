@@ -0,0 +1,212 @@
+package org.egov.certificate.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.certificate.config.CertificateConfiguration;
+import org.egov.certificate.web.models.Certificate;
+import org.egov.certificate.web.models.CertificateSearchCriteria;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Certificates accepted by this instance whose create has not been confirmed as persisted yet, keyed by
+ * (tenantId, certificateId). Search and verification add them to what the database returns, so a client
+ * reads its own writes right after a create. Entries are evicted when a persist confirmation arrives,
+ * when the database returns the certificate, and in any case after the configured TTL. Keys are also
+ * indexed by tenant, so a search only looks at the pending certificates of its tenant.
+ */
+@Component
+@Slf4j
+public class PendingCertificates {
+
+    private static final String CACHE_NAME = "certificate.pending.cache";
+
+    // Ascending key order of keyset paging
+    private static final Comparator<Certificate> ISSUED_ORDER =
+            Comparator.comparingLong(PendingCertificates::issued).thenComparing(Certificate::getId);
+
+    private final CertificateConfiguration configuration;
+    private final Cache<String, Certificate> cache;
+    private final Map<String, Set<String>> keysByTenant = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PendingCertificates(CertificateConfiguration configuration, MeterRegistry meterRegistry) {
+        this.configuration = configuration;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(configuration.getPendingMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(configuration.getPendingTtlSeconds()))
+                .<String, Certificate>removalListener((key, certificate, cause) -> {
+                    // A replaced entry is still pending under the same key
+                    if (key != null && certificate != null && cause != RemovalCause.REPLACED) {
+                        unindex(certificate.getTenantId(), key);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public void add(List<Certificate> certificates) {
+        if (!isEnabled() || certificates == null) {
+            return;
+        }
+        for (Certificate certificate : certificates) {
+            String key = buildKey(certificate.getTenantId(), certificate.getId());
+            keysByTenant.compute(certificate.getTenantId(), (tenantId, keys) -> {
+                Set<String> tenantKeys = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                tenantKeys.add(key);
+                return tenantKeys;
+            });
+            cache.put(key, certificate);
+        }
+    }
+
+    public Certificate get(String tenantId, String certificateId) {
+        return isEnabled() ? cache.getIfPresent(buildKey(tenantId, certificateId)) : null;
+    }
+
+    /**
+     * Evicts the certificates, e.g. because they were confirmed as persisted.
+     */
+    public void evict(Collection<Certificate> certificates) {
+        if (certificates == null || cache.estimatedSize() == 0) {
+            return;
+        }
+        for (Certificate certificate : certificates) {
+            cache.invalidate(buildKey(certificate.getTenantId(), certificate.getId()));
+        }
+    }
+
+    /**
+     * Merges the pending certificates matching the criteria into the first page of a search read from the
+     * database and returns how many the page now holds. Pending certificates the database already
+     * returned are evicted.
+     * <p>
+     * In the key order (issued, id) pending certificates take their place among the rows and the page is
+     * cut back to the limit; the next cursor must then be taken from the merged page. Pending certificates
+     * that sort after a full page are left out: they belong to a later page, where the database returns
+     * them once persisted, so no certificate shows up twice. In any other order they only fill the room
+     * left on the page, which keeps offset paging intact.
+     */
+    public int merge(CertificateSearchCriteria criteria, List<Certificate> certificates) {
+        if (!isEnabled() || cache.estimatedSize() == 0) {
+            return 0;
+        }
+
+        evict(certificates);
+        boolean firstPage = ObjectUtils.isEmpty(criteria.getCursor())
+                && (criteria.getOffset() == null || criteria.getOffset() == 0);
+        if (!firstPage) {
+            return 0;
+        }
+
+        List<Certificate> pending = findMatching(criteria);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        int limit = criteria.getLimit();
+        boolean full = certificates.size() >= limit;
+        if (!CertificateQueryBuilder.isKeysetSortable(criteria)) {
+            if (full) {
+                return 0;
+            }
+            pending.sort(ISSUED_ORDER.reversed());
+            List<Certificate> added = pending.subList(0, Math.min(pending.size(), limit - certificates.size()));
+            certificates.addAll(added);
+            return added.size();
+        }
+
+        Comparator<Certificate> order = CertificateConfiguration.SORT_ORDER_ASC.equalsIgnoreCase(criteria.getSortOrder())
+                ? ISSUED_ORDER : ISSUED_ORDER.reversed();
+        if (full) {
+            Certificate last = certificates.get(certificates.size() - 1);
+            pending.removeIf(certificate -> order.compare(certificate, last) > 0);
+        }
+
+        Set<Certificate> merged = Collections.newSetFromMap(new IdentityHashMap<>());
+        merged.addAll(pending);
+        certificates.addAll(pending);
+        certificates.sort(order);
+        int added = pending.size();
+        while (certificates.size() > limit) {
+            if (merged.contains(certificates.remove(certificates.size() - 1))) {
+                added--;
+            }
+        }
+
+        log.debug("Merged {} pending certificates into the search result", added);
+        return added;
+    }
+
+    private List<Certificate> findMatching(CertificateSearchCriteria criteria) {
+        Collection<String> keys;
+        if (ObjectUtils.isEmpty(criteria.getTenantId())) {
+            keys = cache.asMap().keySet();
+        } else {
+            keys = keysByTenant.getOrDefault(criteria.getTenantId(), Set.of());
+        }
+
+        List<Certificate> pending = new ArrayList<>();
+        for (String key : keys) {
+            Certificate certificate = cache.getIfPresent(key);
+            if (certificate != null && matches(criteria, certificate)) {
+                pending.add(certificate);
+            }
+        }
+        return pending;
+    }
+
+    private void unindex(String tenantId, String key) {
+        keysByTenant.computeIfPresent(tenantId, (tenant, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Applies the filters of the search query to a certificate.
+     */
+    private static boolean matches(CertificateSearchCriteria criteria, Certificate certificate) {
+        Object subjectId = certificate.getCredentialSubject() != null ? certificate.getCredentialSubject().get("id") : null;
+        String issuerId = certificate.getIssuer() != null ? certificate.getIssuer().getId() : null;
+        return (ObjectUtils.isEmpty(criteria.getTenantId()) || criteria.getTenantId().equals(certificate.getTenantId()))
+                && (CollectionUtils.isEmpty(criteria.getIds()) || criteria.getIds().contains(certificate.getId()))
+                && (CollectionUtils.isEmpty(criteria.getIssuerIds()) || criteria.getIssuerIds().contains(issuerId))
+                && (CollectionUtils.isEmpty(criteria.getSubjectIds())
+                        || (subjectId != null && criteria.getSubjectIds().contains(subjectId.toString())))
+                && (CollectionUtils.isEmpty(criteria.getCertificateTypes()) || criteria.getCertificateTypes().contains(certificate.getType()))
+                && (ObjectUtils.isEmpty(criteria.getStatus()) || criteria.getStatus().equals(certificate.getStatus()))
+                && (criteria.getFromDate() == null || issued(certificate) >= criteria.getFromDate())
+                && (criteria.getToDate() == null || issued(certificate) <= criteria.getToDate());
+    }
+
+    private static long issued(Certificate certificate) {
+        return certificate.getIssued() != null ? certificate.getIssued() : 0L;
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(configuration.getPendingEnabled());
+    }
+
+    private static String buildKey(String tenantId, String certificateId) {
+        return tenantId + "|" + certificateId;
+    }
+}
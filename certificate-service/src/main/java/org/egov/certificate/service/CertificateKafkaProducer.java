@@ -1,39 +1,248 @@
 package org.egov.certificate.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.egov.certificate.config.CertificateConfiguration;
+import org.egov.certificate.config.KafkaProducerProfiles;
+import org.egov.certificate.repository.OutboxRepository;
+import org.egov.certificate.web.models.Certificate;
+import org.egov.certificate.web.models.CertificateRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Publishes certificate requests for persistence. With keyed publishing enabled a request is split into
+ * one record per certificate, keyed by {@code tenantId|certificateId}, so records spread over the
+ * partitions while all events of one certificate stay in order on the same partition. Each record still
+ * carries a {@link CertificateRequest} envelope, so consumers read it as before.
+ * <p>
+ * Records sent and failed are counted per topic ({@code certificate.kafka.records}), as is the number of
+ * records each request turned into ({@code certificate.kafka.publish.records}). Each topic is sent through
+ * the producer of its profile, see {@link KafkaProducerProfiles}.
+ * <p>
+ * With the outbox enabled, a record that cannot be sent, or whose send fails later, is stored in the
+ * outbox and published by the {@link OutboxRelay} instead of being lost ({@code certificate.outbox.records}).
+ * Records of a certificate that still has records in the outbox are stored behind them rather than sent, so
+ * that they keep their order. Sends that fail later are stored from a small bounded pool, since their callbacks run on the producer
+ * I/O thread, which must not wait for the database.
+ */
 @Service
 @Slf4j
 public class CertificateKafkaProducer {
 
+    private static final String RECORDS_METRIC = "certificate.kafka.records";
+    private static final String PUBLISH_RECORDS_METRIC = "certificate.kafka.publish.records";
+    static final String OUTBOX_METRIC = "certificate.outbox.records";
+
+    @Autowired
+    private KafkaProducerProfiles producerProfiles;
+
+    @Autowired
+    private CertificateConfiguration configuration;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Autowired
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ThreadPoolExecutor outboxExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        outboxExecutor = new ThreadPoolExecutor(configuration.getOutboxStoreThreads(), configuration.getOutboxStoreThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(configuration.getOutboxStoreQueueCapacity()), runnable -> {
+            Thread thread = new Thread(runnable, "certificate-outbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Let the failed sends already queued reach the outbox
+        outboxExecutor.shutdown();
+        outboxExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public void push(String topic, CertificateRequest certificateRequest) {
+        List<Certificate> certificates = certificateRequest.getCertificates();
+        if (!Boolean.TRUE.equals(configuration.getKafkaKeyedPublishEnabled()) || CollectionUtils.isEmpty(certificates)) {
+            push(topic, (Object) certificateRequest);
+            return;
+        }
+
+        log.info("Publishing {} certificates to topic: {}", certificates.size(), topic);
+        List<String> keys = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            keys.add(recordKey(certificate.getTenantId(), certificate.getId()));
+        }
+        Set<String> outboxKeys = findOutboxKeys(keys);
+
+        for (int i = 0; i < certificates.size(); i++) {
+            CertificateRequest record = CertificateRequest.builder()
+                    .requestInfo(certificateRequest.getRequestInfo())
+                    .certificates(List.of(certificates.get(i)))
+                    .build();
+            if (outboxKeys.contains(keys.get(i))) {
+                sendBehindOutbox(topic, keys.get(i), record);
+            } else {
+                send(topic, keys.get(i), record);
+            }
+        }
+        recordPublish(topic, certificates.size());
+    }
 
     public void push(String topic, Object message) {
         log.info("Publishing message to topic: {}", topic);
-        
+        send(topic, null, message);
+        recordPublish(topic, 1);
+    }
+
+    public static String recordKey(String tenantId, String certificateId) {
+        return tenantId + "|" + certificateId;
+    }
+
+    private void send(String topic, String key, Object message) {
         try {
-            CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, message);
-            
+            CompletableFuture<SendResult<String, Object>> future = producerProfiles.getTemplate(topic).send(topic, key, message);
+
             future.whenComplete((result, throwable) -> {
                 if (throwable != null) {
-                    log.error("Failed to publish message to topic: {} - Error: {}", 
-                            topic, throwable.getMessage(), throwable);
+                    recordCounter(topic, "failed").increment();
+                    log.error("Failed to publish message with key: {} to topic: {} - Error: {}",
+                            key, topic, throwable.getMessage(), throwable);
+                    saveToOutboxAsync(topic, key, message, throwable);
                 } else {
-                    log.info("Successfully published message to topic: {} with offset: {}", 
-                            topic, result.getRecordMetadata().offset());
+                    recordCounter(topic, "sent").increment();
+                    log.debug("Successfully published message with key: {} to topic: {} partition: {} offset: {}",
+                            key, topic, result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
                 }
             });
-            
+
         } catch (Exception e) {
-            log.error("Exception occurred while publishing message to topic: {} - Error: {}", 
+            recordCounter(topic, "failed").increment();
+            log.error("Exception occurred while publishing message to topic: {} - Error: {}",
                     topic, e.getMessage(), e);
-            throw e;
+            // The caller only sees the failure if the outbox cannot take the message either
+            if (!saveToOutbox(topic, key, message, e)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stores the message in the outbox for the relay to publish. Returns false if the outbox is disabled.
+     */
+    private boolean saveToOutbox(String topic, String key, Object message, Throwable error) {
+        if (!Boolean.TRUE.equals(configuration.getOutboxEnabled())) {
+            return false;
         }
+
+        storeInOutbox(topic, key, serialize(message), String.valueOf(error));
+        return true;
+    }
+
+    /**
+     * Hands the message of a failed send to the outbox pool. The message is serialized right away, as
+     * the caller may still change it.
+     */
+    private void saveToOutboxAsync(String topic, String key, Object message, Throwable error) {
+        if (!Boolean.TRUE.equals(configuration.getOutboxEnabled())) {
+            return;
+        }
+
+        try {
+            String payload = serialize(message);
+            outboxExecutor.execute(() -> {
+                try {
+                    storeInOutbox(topic, key, payload, String.valueOf(error));
+                } catch (Exception e) {
+                    meterRegistry.counter(OUTBOX_METRIC, "result", "lost").increment();
+                    log.error("Message with key: {} for topic: {} is lost, the outbox could not store it",
+                            key, topic, e);
+                }
+            });
+        } catch (RejectedExecutionException | IllegalStateException e) {
+            meterRegistry.counter(OUTBOX_METRIC, "result", "lost").increment();
+            log.error("Message with key: {} for topic: {} is lost, the outbox could not take it", key, topic, e);
+        }
+    }
+
+    private void storeInOutbox(String topic, String key, String payload, String error) {
+        outboxRepository.save(topic, key, payload, error);
+        meterRegistry.counter(OUTBOX_METRIC, "result", "stored").increment();
+        log.warn("Stored message with key: {} for topic: {} in the outbox", key, topic);
+    }
+
+    /**
+     * Returns the keys that still have records in the outbox. Their new records must be stored behind
+     * those instead of being sent directly, or they could reach the topic first.
+     */
+    private Set<String> findOutboxKeys(List<String> keys) {
+        if (!Boolean.TRUE.equals(configuration.getOutboxEnabled())) {
+            return Set.of();
+        }
+        try {
+            return outboxRepository.findKeys(keys);
+        } catch (Exception e) {
+            log.warn("Unable to look up outbox keys, publishing directly", e);
+            return Set.of();
+        }
+    }
+
+    private void sendBehindOutbox(String topic, String key, Object message) {
+        try {
+            storeInOutbox(topic, key, serialize(message), "Queued behind earlier outbox records of the key");
+        } catch (Exception e) {
+            log.error("Unable to queue message with key: {} for topic: {} in the outbox, publishing directly",
+                    key, topic, e);
+            send(topic, key, message);
+        }
+    }
+
+    private String serialize(Object message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to serialize message for the outbox", e);
+        }
+    }
+
+    private Counter recordCounter(String topic, String result) {
+        return Counter.builder(RECORDS_METRIC)
+                .description("Records published to Kafka")
+                .tag("topic", topic)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void recordPublish(String topic, int records) {
+        DistributionSummary.builder(PUBLISH_RECORDS_METRIC)
+                .description("Records published per request")
+                .tag("topic", topic)
+                .register(meterRegistry)
+                .record(records);
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,25 @@
 package org.egov.certificate.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.certificate.config.CertificateConfiguration;
+import org.egov.certificate.repository.CertificateCache;
+import org.egov.certificate.repository.CertificateQueryBuilder;
 import org.egov.certificate.repository.CertificateRepository;
+import org.egov.certificate.repository.PendingCertificates;
+import org.egov.certificate.util.CursorUtil;
 import org.egov.certificate.web.models.*;
 import org.egov.common.contract.request.RequestInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Service
@@ -30,6 +41,15 @@ public class CertificateService {
     @Autowired
     private CertificateConfiguration configuration;
 
+    @Autowired
+    private CertificateCache certificateCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PendingCertificates pendingCertificates;
+
     public List<Certificate> createCertificates(CertificateRequest certificateRequest) {
         RequestInfo requestInfo = certificateRequest.getRequestInfo();
         List<Certificate> certificates = certificateRequest.getCertificates();
@@ -44,12 +64,13 @@ public class CertificateService {
 
         // Publish to Kafka for persistence
         certificateKafkaProducer.push(configuration.getCreateTopic(), certificateRequest);
+        pendingCertificates.add(certificates);
 
         log.info("Successfully processed {} certificates for creation", certificates.size());
         return certificates;
     }
 
-    public List<Certificate> searchCertificates(CertificateSearchRequest searchRequest) {
+    public CertificateSearchResult searchCertificates(CertificateSearchRequest searchRequest) {
         RequestInfo requestInfo = searchRequest.getRequestInfo();
         CertificateSearchCriteria criteria = searchRequest.getSearchCriteria();
 
@@ -67,16 +88,71 @@ public class CertificateService {
         validationService.validateSearchRequest(searchRequest);
 
         // Search certificates
-        List<Certificate> certificates = certificateRepository.getCertificates(criteria);
+        CertificateSearchResult result = certificateRepository.searchCertificates(criteria);
 
-        log.info("Found {} certificates matching search criteria", certificates.size());
-        return certificates;
+        // Creates accepted but not persisted yet; the cursor follows the merged page
+        int pending = pendingCertificates.merge(criteria, result.getCertificates());
+        if (pending > 0 && result.getTotalCount() != null) {
+            result.setTotalCount(result.getTotalCount() + pending);
+        }
+        result.setNextCursor(getNextCursor(criteria, result.getCertificates()));
+
+        log.info("Found {} certificates matching search criteria", result.getCertificates().size());
+        return result;
+    }
+
+    /**
+     * Validates the export request and returns a body that writes every matching certificate as one
+     * JSON line (NDJSON). Rows are serialized as they are read from the database, so memory use does not
+     * depend on the number of certificates exported. Limit, offset, cursor and sort are ignored.
+     */
+    public StreamingResponseBody exportCertificates(CertificateSearchRequest searchRequest) {
+        validationService.validateSearchRequest(searchRequest);
+        CertificateSearchCriteria criteria = searchRequest.getSearchCriteria();
+
+        log.info("Exporting certificates with criteria: {}", criteria);
+
+        ObjectWriter writer = objectMapper.writer();
+        int flushRows = configuration.getExportFlushRows();
+        return outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+            int[] pending = {0};
+            int count = certificateRepository.exportCertificates(criteria, certificate -> {
+                try {
+                    out.write(writer.writeValueAsBytes(certificate));
+                    out.write('\n');
+                    if (++pending[0] >= flushRows) {
+                        out.flush();
+                        pending[0] = 0;
+                    }
+                } catch (IOException e) {
+                    // Usually the client went away; abort the query rather than reading on
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+            log.info("Exported {} certificates", count);
+        };
     }
 
     public Integer getCertificateCount(CertificateSearchCriteria criteria) {
         return certificateRepository.getCertificateCount(criteria);
     }
 
+    /**
+     * Builds the continuation token pointing past the last certificate of the page. Returns null when
+     * the ordering cannot be paged by key or there is nothing left to read.
+     */
+    public String getNextCursor(CertificateSearchCriteria criteria, List<Certificate> certificates) {
+        if (CollectionUtils.isEmpty(certificates) || !CertificateQueryBuilder.isKeysetSortable(criteria)
+                || certificates.size() < criteria.getLimit()) {
+            return null;
+        }
+
+        Certificate last = certificates.get(certificates.size() - 1);
+        return CursorUtil.encode(last.getIssued(), last.getId());
+    }
+
     public List<Certificate> updateCertificates(CertificateRequest certificateRequest) {
         RequestInfo requestInfo = certificateRequest.getRequestInfo();
         List<Certificate> certificates = certificateRequest.getCertificates();
@@ -91,6 +167,7 @@ public class CertificateService {
 
         // Publish to Kafka for persistence
         certificateKafkaProducer.push(configuration.getUpdateTopic(), certificateRequest);
+        certificateCache.invalidate(certificates);
 
         log.info("Successfully processed {} certificates for update", certificates.size());
         return certificates;
@@ -119,6 +196,7 @@ public class CertificateService {
 
         // Publish to Kafka for persistence
         certificateKafkaProducer.push(configuration.getRevokeTopic(), certificateRequest);
+        certificateCache.invalidate(certificates);
 
         log.info("Successfully processed {} certificates for revocation", certificates.size());
         return certificates;
@@ -2,7 +2,8 @@ package org.egov.certificate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.egov.certificate.config.CertificateConfiguration;
-import org.egov.certificate.util.IdgenUtil;
+import org.egov.certificate.util.DigitalSignatureUtil;
+import org.egov.certificate.util.IdgenPool;
 import org.egov.certificate.web.models.Certificate;
 import org.egov.certificate.web.models.Proof;
 import org.egov.certificate.web.models.RevocationDetail;
@@ -12,7 +13,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -20,22 +25,22 @@ import java.util.UUID;
 public class EnrichmentService {
 
     @Autowired
-    private IdgenUtil idgenUtil;
+    private IdgenPool idgenPool;
 
     @Autowired
     private CertificateConfiguration configuration;
 
+    @Autowired
+    private DigitalSignatureUtil digitalSignatureUtil;
+
     public void enrichCertificatesForCreate(List<Certificate> certificates, RequestInfo requestInfo) {
         log.info("Enriching {} certificates for creation", certificates.size());
 
-        for (Certificate certificate : certificates) {
-            // Generate certificate ID
-            if (certificate.getId() == null) {
-                List<String> certificateIds = idgenUtil.getIdList(requestInfo, certificate.getTenantId(),
-                        configuration.getIdGenName(), configuration.getIdGenFormat(), 1);
-                certificate.setId(certificateIds.get(0));
-            }
+        // Generate certificate IDs with one idgen request per tenant
+        enrichCertificateIds(certificates, requestInfo);
 
+        List<Certificate> unsignedCertificates = new ArrayList<>();
+        for (Certificate certificate : certificates) {
             // Set issued timestamp
             Long currentTime = System.currentTimeMillis();
             certificate.setIssued(currentTime);
@@ -50,9 +55,8 @@ public class EnrichmentService {
                 certificate.setContext(configuration.getDefaultContext());
             }
 
-            // Create digital proof (placeholder for now)
             if (certificate.getProof() == null) {
-                certificate.setProof(createDigitalProof(certificate, currentTime));
+                unsignedCertificates.add(certificate);
             }
 
             // Set audit details
@@ -61,6 +65,13 @@ public class EnrichmentService {
             certificate.setAuditDetails(auditDetails);
         }
 
+        // Sign the certificates with the issuer's key in one batch
+        List<Proof> proofs = digitalSignatureUtil.createDigitalSignatures(unsignedCertificates);
+        for (int i = 0; i < unsignedCertificates.size(); i++) {
+            Certificate certificate = unsignedCertificates.get(i);
+            certificate.setProof(enrichProof(proofs.get(i), certificate.getIssued()));
+        }
+
         log.info("Successfully enriched {} certificates for creation", certificates.size());
     }
 
@@ -126,24 +137,31 @@ public class EnrichmentService {
         log.info("Successfully enriched {} certificates for revocation", certificates.size());
     }
 
+    private void enrichCertificateIds(List<Certificate> certificates, RequestInfo requestInfo) {
+        Map<String, List<Certificate>> certificatesByTenant = new LinkedHashMap<>();
+        for (Certificate certificate : certificates) {
+            if (certificate.getId() == null) {
+                certificatesByTenant.computeIfAbsent(certificate.getTenantId(), key -> new ArrayList<>())
+                        .add(certificate);
+            }
+        }
+
+        certificatesByTenant.forEach((tenantId, tenantCertificates) -> {
+            List<String> certificateIds = idgenPool.getIds(requestInfo, tenantId,
+                    configuration.getIdGenName(), configuration.getIdGenFormat(), tenantCertificates.size());
+            Iterator<String> idIterator = certificateIds.iterator();
+            tenantCertificates.forEach(certificate -> certificate.setId(idIterator.next()));
+        });
+    }
+
     private Proof createDigitalProof(Certificate certificate, Long currentTime) {
-        // This is a placeholder implementation
-        // In a real implementation, this would create actual digital signatures
-        return Proof.builder()
-                .id(UUID.randomUUID().toString())
-                .type(configuration.getDefaultSignatureAlgorithm())
-                .created(currentTime)
-                .proofPurpose(configuration.getDefaultProofPurpose())
-                .verificationMethod(certificate.getIssuer().getId() + "#key-1")
-                .signatureValue(generateMockSignature(certificate))
-                .build();
+        return enrichProof(digitalSignatureUtil.createDigitalSignature(certificate), currentTime);
     }
 
-    private String generateMockSignature(Certificate certificate) {
-        // This is a placeholder implementation
-        // In a real implementation, this would generate actual cryptographic signatures
-        return "z" + UUID.randomUUID().toString().replace("-", "") + 
-               Integer.toHexString(certificate.hashCode());
+    private Proof enrichProof(Proof proof, Long currentTime) {
+        proof.setId(UUID.randomUUID().toString());
+        proof.setCreated(currentTime);
+        return proof;
     }
 
     private AuditDetails buildAuditDetails(String userId, Long currentTime) {
@@ -2,7 +2,9 @@ package org.egov.certificate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.egov.certificate.config.CertificateConfiguration;
+import org.egov.certificate.repository.CertificateQueryBuilder;
 import org.egov.certificate.repository.CertificateRepository;
+import org.egov.certificate.util.CursorUtil;
 import org.egov.certificate.web.models.*;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,10 +12,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 @Slf4j
@@ -31,6 +36,12 @@ public class ValidationService {
             CertificateConfiguration.CERTIFICATE_STATUS_EXPIRED
     );
 
+    private static final List<String> VALID_TOTAL_COUNT_MODES = Arrays.asList(
+            CertificateConfiguration.TOTAL_COUNT_NONE,
+            CertificateConfiguration.TOTAL_COUNT_EXACT,
+            CertificateConfiguration.TOTAL_COUNT_ESTIMATE
+    );
+
     private static final List<String> VALID_ISSUER_TYPES = Arrays.asList(
             CertificateConfiguration.ISSUER_TYPE_DEPARTMENT,
             CertificateConfiguration.ISSUER_TYPE_AGENCY,
@@ -52,8 +63,11 @@ public class ValidationService {
             throw new CustomException("INVALID_REQUEST", "Cannot create more than 100 certificates in a single request");
         }
 
+        Set<String> existingSubjectKeys = getExistingSubjectKeys(request.getCertificates());
+        Set<String> requestSubjectKeys = new HashSet<>();
+
         for (Certificate certificate : request.getCertificates()) {
-            validateCertificateForCreate(certificate);
+            validateCertificateForCreate(certificate, existingSubjectKeys, requestSubjectKeys);
         }
 
         log.info("Certificate creation request validation completed successfully");
@@ -70,8 +84,11 @@ public class ValidationService {
             throw new CustomException("INVALID_REQUEST", "Certificates list cannot be empty");
         }
 
+        Set<String> existingSubjectKeys = getExistingSubjectKeys(request.getCertificates());
+        Set<String> requestSubjectKeys = new HashSet<>();
+
         for (Certificate certificate : request.getCertificates()) {
-            validateCertificateForUpdate(certificate);
+            validateCertificateForUpdate(certificate, existingSubjectKeys, requestSubjectKeys);
         }
 
         log.info("Certificate update request validation completed successfully");
@@ -112,6 +129,20 @@ public class ValidationService {
             throw new CustomException("INVALID_REQUEST", "FromDate cannot be greater than ToDate");
         }
 
+        // Validate total count mode
+        if (StringUtils.hasText(criteria.getIncludeTotalCount()) && !VALID_TOTAL_COUNT_MODES.contains(criteria.getIncludeTotalCount().toLowerCase())) {
+            throw new CustomException("INVALID_REQUEST",
+                    "Invalid includeTotalCount. Valid values are: " + String.join(", ", VALID_TOTAL_COUNT_MODES));
+        }
+
+        // Validate cursor, keyset pagination is only supported on the issued date ordering
+        if (StringUtils.hasText(criteria.getCursor())) {
+            if (!CertificateQueryBuilder.isKeysetSortable(criteria)) {
+                throw new CustomException("INVALID_CURSOR", "Cursor pagination is only supported when sorting by issued");
+            }
+            CursorUtil.decode(criteria.getCursor());
+        }
+
         log.info("Certificate search request validation completed successfully");
     }
 
@@ -133,7 +164,8 @@ public class ValidationService {
         log.info("Certificate revocation request validation completed successfully");
     }
 
-    private void validateCertificateForCreate(Certificate certificate) {
+    private void validateCertificateForCreate(Certificate certificate, Set<String> existingSubjectKeys,
+                                              Set<String> requestSubjectKeys) {
         Map<String, String> errorMap = new HashMap<>();
 
         // Validate mandatory fields
@@ -160,14 +192,15 @@ public class ValidationService {
         }
 
         // Validate business rules
-        validateBusinessRules(certificate, errorMap);
+        validateBusinessRules(certificate, existingSubjectKeys, requestSubjectKeys, errorMap);
 
         if (!errorMap.isEmpty()) {
             throw new CustomException(errorMap);
         }
     }
 
-    private void validateCertificateForUpdate(Certificate certificate) {
+    private void validateCertificateForUpdate(Certificate certificate, Set<String> existingSubjectKeys,
+                                              Set<String> requestSubjectKeys) {
         Map<String, String> errorMap = new HashMap<>();
 
         // Certificate ID must be provided for updates
@@ -187,7 +220,7 @@ public class ValidationService {
         }
 
         // Validate other fields similar to create
-        validateCertificateForCreate(certificate);
+        validateCertificateForCreate(certificate, existingSubjectKeys, requestSubjectKeys);
 
         if (!errorMap.isEmpty()) {
             throw new CustomException(errorMap);
@@ -241,17 +274,19 @@ public class ValidationService {
         }
     }
 
-    private void validateBusinessRules(Certificate certificate, Map<String, String> errorMap) {
+    private void validateBusinessRules(Certificate certificate, Set<String> existingSubjectKeys,
+                                       Set<String> requestSubjectKeys, Map<String, String> errorMap) {
         // Check for duplicate active certificates for the same subject and type
-        if (certificate.getCredentialSubject() != null && 
-            certificate.getCredentialSubject().containsKey("id") &&
-            StringUtils.hasText(certificate.getType())) {
-            String subjectId = (String) certificate.getCredentialSubject().get("id");
+        String subjectId = getSubjectId(certificate);
+        if (subjectId != null && StringUtils.hasText(certificate.getType())) {
             String certificateType = certificate.getType();
-            if (certificateRepository.existsCertificateBySubjectId(
-                    certificate.getTenantId(), subjectId, certificateType)) {
+            String subjectKey = CertificateRepository.buildSubjectKey(certificate.getTenantId(), subjectId, certificateType);
+            if (existingSubjectKeys.contains(subjectKey)) {
                 errorMap.put("DUPLICATE_CERTIFICATE", 
                         "Active certificate already exists for subject " + subjectId + " and type " + certificateType);
+            } else if (!requestSubjectKeys.add(subjectKey)) {
+                errorMap.put("DUPLICATE_CERTIFICATE_IN_REQUEST",
+                        "Request contains more than one certificate for subject " + subjectId + " and type " + certificateType);
             }
         }
 
@@ -260,4 +295,34 @@ public class ValidationService {
             errorMap.put("INVALID_EXPIRATION_DATE", "Expiration date cannot be in the past");
         }
     }
+
+    /**
+     * Looks up every (tenant, subject, type) tuple of the request in a single query instead of
+     * issuing one existence check per certificate.
+     */
+    private Set<String> getExistingSubjectKeys(List<Certificate> certificates) {
+        List<String> tenantIds = new ArrayList<>();
+        List<String> subjectIds = new ArrayList<>();
+        List<String> certificateTypes = new ArrayList<>();
+
+        for (Certificate certificate : certificates) {
+            String subjectId = getSubjectId(certificate);
+            if (subjectId != null && StringUtils.hasText(certificate.getType())
+                    && StringUtils.hasText(certificate.getTenantId())) {
+                tenantIds.add(certificate.getTenantId());
+                subjectIds.add(subjectId);
+                certificateTypes.add(certificate.getType());
+            }
+        }
+
+        return certificateRepository.getActiveSubjectKeys(tenantIds, subjectIds, certificateTypes);
+    }
+
+    private String getSubjectId(Certificate certificate) {
+        if (certificate.getCredentialSubject() == null) {
+            return null;
+        }
+        Object subjectId = certificate.getCredentialSubject().get("id");
+        return subjectId instanceof String && StringUtils.hasText((String) subjectId) ? (String) subjectId : null;
+    }
 }
\ No newline at end of file
@@ -2,14 +2,19 @@ package org.egov.certificate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.egov.certificate.config.CertificateConfiguration;
-import org.egov.certificate.repository.CertificateRepository;
+import org.egov.certificate.repository.CertificateCache;
+import org.egov.certificate.repository.PendingCertificates;
+import org.egov.certificate.util.DigitalSignatureUtil;
 import org.egov.certificate.web.models.*;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -17,19 +22,35 @@ import java.util.Map;
 public class VerificationService {
 
     @Autowired
-    private CertificateRepository certificateRepository;
+    private CertificateCache certificateCache;
+
+    @Autowired
+    private PendingCertificates pendingCertificates;
 
     @Autowired
     private CertificateConfiguration configuration;
 
+    @Autowired
+    private DigitalSignatureUtil digitalSignatureUtil;
+
+    private static final Map<String, Object> VERIFICATION_ENGINE_DETAILS = Map.of(
+            "verificationMethod", "cryptographic",
+            "verificationEngine", "certificate-service",
+            "verificationVersion", "1.0"
+    );
+
     public VerificationResult verifyCertificate(CertificateVerificationRequest request) {
         log.info("Starting certificate verification");
 
         validateVerificationRequest(request);
         
         VerificationCriteria criteria = request.getVerificationCriteria();
-        Certificate certificate = certificateRepository.getCertificateById(
+        Certificate certificate = certificateCache.getCertificateById(
                 criteria.getTenantId(), criteria.getCertificateId());
+        if (certificate == null) {
+            // Created on this instance but not persisted yet
+            certificate = pendingCertificates.get(criteria.getTenantId(), criteria.getCertificateId());
+        }
 
         if (certificate == null) {
             throw new CustomException("CERTIFICATE_NOT_FOUND", "Certificate not found");
@@ -38,6 +59,73 @@ public class VerificationService {
         return performVerification(certificate, criteria);
     }
 
+    /**
+     * Verifies a batch of certificates. Certificates are loaded with one lookup per tenant and the checks
+     * run in parallel; every criteria gets a result, in request order, with per-item errors in place of
+     * a failed request.
+     */
+    public List<VerificationResult> verifyCertificates(CertificateBulkVerificationRequest request) {
+        validateBulkVerificationRequest(request);
+
+        List<VerificationCriteria> criteriaList = request.getVerificationCriteria();
+        log.info("Starting bulk verification of {} certificates", criteriaList.size());
+
+        Map<String, List<String>> certificateIdsByTenant = new LinkedHashMap<>();
+        for (VerificationCriteria criteria : criteriaList) {
+            if (criteria != null && StringUtils.hasText(criteria.getTenantId()) && StringUtils.hasText(criteria.getCertificateId())) {
+                certificateIdsByTenant.computeIfAbsent(criteria.getTenantId(), tenantId -> new ArrayList<>())
+                        .add(criteria.getCertificateId());
+            }
+        }
+
+        Map<String, Certificate> certificates = new HashMap<>();
+        certificateIdsByTenant.forEach((tenantId, certificateIds) -> {
+            for (Certificate certificate : certificateCache.getCertificatesByIds(tenantId, certificateIds)) {
+                certificates.put(tenantId + "|" + certificate.getId(), certificate);
+            }
+        });
+
+        List<VerificationResult> results = criteriaList.parallelStream()
+                .map(criteria -> verifyCertificate(criteria, certificates))
+                .toList();
+
+        log.info("Bulk verification completed for {} certificates", results.size());
+        return results;
+    }
+
+    private VerificationResult verifyCertificate(VerificationCriteria criteria, Map<String, Certificate> certificates) {
+        if (criteria == null || !StringUtils.hasText(criteria.getTenantId()) || !StringUtils.hasText(criteria.getCertificateId())) {
+            return buildFailedResult(criteria, "INVALID_REQUEST", "TenantId and Certificate ID are mandatory");
+        }
+
+        Certificate certificate = certificates.get(criteria.getTenantId() + "|" + criteria.getCertificateId());
+        if (certificate == null) {
+            certificate = pendingCertificates.get(criteria.getTenantId(), criteria.getCertificateId());
+        }
+        if (certificate == null) {
+            return buildFailedResult(criteria, "CERTIFICATE_NOT_FOUND", "Certificate not found");
+        }
+
+        try {
+            return performVerification(certificate, criteria);
+        } catch (Exception e) {
+            log.error("Verification failed for certificate: {}", criteria.getCertificateId(), e);
+            return buildFailedResult(criteria, "VERIFICATION_FAILED", e.getMessage());
+        }
+    }
+
+    private VerificationResult buildFailedResult(VerificationCriteria criteria, String code, String message) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put(code, message);
+
+        return VerificationResult.builder()
+                .certificateId(criteria != null ? criteria.getCertificateId() : null)
+                .isValid(false)
+                .verificationTimestamp(System.currentTimeMillis())
+                .errors(errors)
+                .build();
+    }
+
     private VerificationResult performVerification(Certificate certificate, VerificationCriteria criteria) {
         log.info("Performing verification for certificate: {}", certificate.getId());
 
@@ -63,7 +151,7 @@ public class VerificationService {
         // Verify digital signature
         boolean signatureValid = true;
         if (criteria.getIncludeProofValidation() && certificate.getProof() != null) {
-            signatureValid = verifyDigitalSignature(certificate);
+            signatureValid = digitalSignatureUtil.verifyDigitalSignature(certificate);
             verificationDetails.put("signatureAlgorithm", certificate.getProof().getType());
             verificationDetails.put("verificationMethod", certificate.getProof().getVerificationMethod());
             verificationDetails.put("proofPurpose", certificate.getProof().getProofPurpose());
@@ -79,9 +167,7 @@ public class VerificationService {
         boolean isValid = notRevoked && notExpired && signatureValid && issuerVerified;
 
         // Add verification method details
-        verificationDetails.put("verificationMethod", "cryptographic");
-        verificationDetails.put("verificationEngine", "certificate-service");
-        verificationDetails.put("verificationVersion", "1.0");
+        verificationDetails.putAll(VERIFICATION_ENGINE_DETAILS);
 
         // Include additional validations if provided
         if (criteria.getAdditionalValidations() != null) {
@@ -103,23 +189,6 @@ public class VerificationService {
         return result;
     }
 
-    private boolean verifyDigitalSignature(Certificate certificate) {
-        // This is a placeholder implementation
-        // In a real implementation, this would:
-        // 1. Retrieve the public key from the verification method
-        // 2. Recreate the certificate data hash
-        // 3. Verify the signature using the public key
-        
-        Proof proof = certificate.getProof();
-        if (proof == null || !StringUtils.hasText(proof.getSignatureValue())) {
-            return false;
-        }
-
-        // Mock verification - in reality, this would use cryptographic libraries
-        // to verify the signature against the certificate data
-        return proof.getSignatureValue().startsWith("z") && proof.getSignatureValue().length() > 50;
-    }
-
     private boolean verifyIssuerAuthority(Certificate certificate) {
         // This is a placeholder implementation
         // In a real implementation, this would:
@@ -159,6 +228,21 @@ public class VerificationService {
         }
     }
 
+    private void validateBulkVerificationRequest(CertificateBulkVerificationRequest request) {
+        if (request.getRequestInfo() == null) {
+            throw new CustomException("INVALID_REQUEST", "RequestInfo is mandatory");
+        }
+
+        if (request.getVerificationCriteria() == null || request.getVerificationCriteria().isEmpty()) {
+            throw new CustomException("INVALID_REQUEST", "Verification criteria is mandatory");
+        }
+
+        if (request.getVerificationCriteria().size() > configuration.getMaxBulkVerificationSize()) {
+            throw new CustomException("BULK_LIMIT_EXCEEDED",
+                    "Cannot verify more than " + configuration.getMaxBulkVerificationSize() + " certificates in a single request");
+        }
+    }
+
     private void validateVerificationRequest(CertificateVerificationRequest request) {
         if (request.getRequestInfo() == null) {
             throw new CustomException("INVALID_REQUEST", "RequestInfo is mandatory");
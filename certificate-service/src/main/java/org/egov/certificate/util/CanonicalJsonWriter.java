@@ -0,0 +1,224 @@
+package org.egov.certificate.util;
+
+import org.egov.certificate.web.models.Certificate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes the signed part of a certificate as canonical JSON in the style of JCS (RFC 8785): object keys
+ * sorted by UTF-16 code units, no whitespace, minimal string escaping and normalized numbers. The output
+ * only depends on the certificate content, never on map iteration order, so a certificate read back from
+ * the database serializes to the same bytes it was signed with.
+ * <p>
+ * Output goes to a per-thread buffer that is reused across calls; the returned {@link Buffer} is only
+ * valid until the next call on the same thread.
+ */
+public final class CanonicalJsonWriter {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(() -> new Buffer(INITIAL_CAPACITY));
+
+    /**
+     * Serializes the signing payload of the certificate: context, credentialSubject, expirationDate, id,
+     * issued, issuer (id), tenantId and type. Null fields are left out.
+     */
+    public static Buffer writeCertificate(Certificate certificate) {
+        Buffer buffer = BUFFERS.get();
+        buffer.reset();
+
+        // Keys are written in their canonical order
+        buffer.write('{');
+        boolean first = writeField(buffer, "context", certificate.getContext(), true);
+        first = writeField(buffer, "credentialSubject", certificate.getCredentialSubject(), first);
+        first = writeField(buffer, "expirationDate", certificate.getExpirationDate(), first);
+        first = writeField(buffer, "id", certificate.getId(), first);
+        first = writeField(buffer, "issued", certificate.getIssued(), first);
+        first = writeField(buffer, "issuer", certificate.getIssuer() != null ? certificate.getIssuer().getId() : null, first);
+        first = writeField(buffer, "tenantId", certificate.getTenantId(), first);
+        writeField(buffer, "type", certificate.getType(), first);
+        buffer.write('}');
+        return buffer;
+    }
+
+    private static boolean writeField(Buffer buffer, String name, Object value, boolean first) {
+        if (value == null) {
+            return first;
+        }
+        if (!first) {
+            buffer.write(',');
+        }
+        writeString(buffer, name);
+        buffer.write(':');
+        writeValue(buffer, value);
+        return false;
+    }
+
+    private static void writeValue(Buffer buffer, Object value) {
+        if (value == null) {
+            buffer.writeAscii("null");
+        } else if (value instanceof String string) {
+            writeString(buffer, string);
+        } else if (value instanceof Boolean bool) {
+            buffer.writeAscii(bool ? "true" : "false");
+        } else if (value instanceof Number number) {
+            buffer.writeAscii(formatNumber(number));
+        } else if (value instanceof Map<?, ?> map) {
+            writeObject(buffer, map);
+        } else if (value instanceof Collection<?> collection) {
+            buffer.write('[');
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) {
+                    buffer.write(',');
+                }
+                writeValue(buffer, element);
+                first = false;
+            }
+            buffer.write(']');
+        } else {
+            writeString(buffer, value.toString());
+        }
+    }
+
+    private static void writeObject(Buffer buffer, Map<?, ?> map) {
+        String[] keys = new String[map.size()];
+        int i = 0;
+        for (Object key : map.keySet()) {
+            keys[i++] = String.valueOf(key);
+        }
+        // String.compareTo orders by UTF-16 code units, as JCS requires
+        Arrays.sort(keys);
+
+        buffer.write('{');
+        for (i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                buffer.write(',');
+            }
+            writeString(buffer, keys[i]);
+            buffer.write(':');
+            writeValue(buffer, map.get(keys[i]));
+        }
+        buffer.write('}');
+    }
+
+    private static void writeString(Buffer buffer, String value) {
+        buffer.write('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> buffer.writeAscii("\\\"");
+                case '\\' -> buffer.writeAscii("\\\\");
+                case '\b' -> buffer.writeAscii("\\b");
+                case '\f' -> buffer.writeAscii("\\f");
+                case '\n' -> buffer.writeAscii("\\n");
+                case '\r' -> buffer.writeAscii("\\r");
+                case '\t' -> buffer.writeAscii("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        buffer.writeAscii("\\u00");
+                        buffer.write(HEX[c >> 4]);
+                        buffer.write(HEX[c & 0xF]);
+                    } else if (c < 0x80) {
+                        buffer.write(c);
+                    } else if (c < 0x800) {
+                        buffer.write(0xC0 | (c >> 6));
+                        buffer.write(0x80 | (c & 0x3F));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        buffer.write(0xF0 | (codePoint >> 18));
+                        buffer.write(0x80 | ((codePoint >> 12) & 0x3F));
+                        buffer.write(0x80 | ((codePoint >> 6) & 0x3F));
+                        buffer.write(0x80 | (codePoint & 0x3F));
+                    } else {
+                        buffer.write(0xE0 | (c >> 12));
+                        buffer.write(0x80 | ((c >> 6) & 0x3F));
+                        buffer.write(0x80 | (c & 0x3F));
+                    }
+                }
+            }
+        }
+        buffer.write('"');
+    }
+
+    /**
+     * Formats numbers so that equal values always serialize the same way, whatever their Java type:
+     * integral values without fraction or exponent, others in their shortest plain form.
+     */
+    private static String formatNumber(Number number) {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte || number instanceof BigInteger) {
+            return number.toString();
+        }
+
+        BigDecimal decimal;
+        if (number instanceof BigDecimal bigDecimal) {
+            decimal = bigDecimal;
+        } else {
+            double value = number.doubleValue();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("Non-finite numbers cannot be serialized canonically");
+            }
+            // Double.toString yields the shortest decimal that round-trips to the same double
+            decimal = new BigDecimal(Double.toString(value));
+        }
+
+        if (decimal.signum() == 0) {
+            return "0";
+        }
+        return decimal.stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Growable byte buffer exposing its backing array so that hashing can read it without a copy.
+     */
+    public static final class Buffer {
+
+        private byte[] bytes;
+        private int length;
+
+        private Buffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        public byte[] array() {
+            return bytes;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        private void reset() {
+            // Do not pin the memory of an unusually large certificate to the thread
+            if (bytes.length > MAX_RETAINED_CAPACITY) {
+                bytes = new byte[INITIAL_CAPACITY];
+            }
+            length = 0;
+        }
+
+        private void write(int b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length << 1);
+            }
+            bytes[length++] = (byte) b;
+        }
+
+        private void writeAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                write(value.charAt(i));
+            }
+        }
+    }
+
+    private CanonicalJsonWriter() {
+        // Utility class
+    }
+}
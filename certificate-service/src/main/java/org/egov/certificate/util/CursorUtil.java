@@ -0,0 +1,49 @@
+package org.egov.certificate.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.egov.tracer.model.CustomException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque continuation token used for keyset pagination.
+ * The token carries the sort key and id of the last row of the previous page.
+ * <p>
+ * bank-account-service keeps an identical copy in {@code org.egov.util}, as the services share no library
+ * module. Changes must be made to both copies.
+ */
+public class CursorUtil {
+
+    private static final char SEPARATOR = ':';
+
+    public static String encode(Long sortKey, String id) {
+        String value = sortKey + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = value.indexOf(SEPARATOR);
+            if (separatorIndex <= 0 || separatorIndex == value.length() - 1) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new Cursor(Long.parseLong(value.substring(0, separatorIndex)), value.substring(separatorIndex + 1));
+        } catch (IllegalArgumentException e) {
+            throw new CustomException("INVALID_CURSOR", "Invalid continuation cursor");
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Cursor {
+        private final Long sortKey;
+        private final String id;
+    }
+
+    private CursorUtil() {
+        // Utility class
+    }
+}
@@ -4,38 +4,65 @@ import lombok.extern.slf4j.Slf4j;
 import org.egov.certificate.config.CertificateConfiguration;
 import org.egov.certificate.web.models.Certificate;
 import org.egov.certificate.web.models.Proof;
+import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
-import java.util.Base64;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Component
 @Slf4j
 public class DigitalSignatureUtil {
 
+    private static final String MULTIBASE_BASE58_PREFIX = "z";
+    private static final String BASE58_ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+    private static final BigInteger BASE58_RADIX = BigInteger.valueOf(58);
+
+    // Signature objects are not thread-safe but are expensive to look up, so each thread keeps one
+    private static final ThreadLocal<Signature> SIGNATURES = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(SigningKeyRegistry.KEY_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Ed25519 is not supported by this JVM", e);
+        }
+    });
+
     @Autowired
     private CertificateConfiguration configuration;
 
-    private final SecureRandom secureRandom = new SecureRandom();
+    @Autowired
+    private SigningKeyRegistry signingKeyRegistry;
 
     public Proof createDigitalSignature(Certificate certificate) {
+        return createDigitalSignature(certificate, HashUtil.hashCertificate(certificate));
+    }
+
+    /**
+     * Signs a batch of certificates, e.g. a bulk create. Payloads are hashed in one pass with the
+     * thread's serialization buffer and digest; the proofs follow the order of {@code certificates}.
+     */
+    public List<Proof> createDigitalSignatures(List<Certificate> certificates) {
+        List<byte[]> hashes = HashUtil.hashCertificates(certificates);
+        List<Proof> proofs = new ArrayList<>(certificates.size());
+        for (int i = 0; i < certificates.size(); i++) {
+            proofs.add(createDigitalSignature(certificates.get(i), hashes.get(i)));
+        }
+        return proofs;
+    }
+
+    private Proof createDigitalSignature(Certificate certificate, byte[] dataHash) {
         log.info("Creating digital signature for certificate: {}", certificate.getId());
 
+        String verificationMethod = certificate.getIssuer().getId() + "#key-1";
         try {
-            // In a real implementation, this would:
-            // 1. Serialize the certificate data canonically
-            // 2. Create a hash of the canonical data
-            // 3. Sign the hash using the issuer's private key
-            // 4. Return the signature in the appropriate format
-
-            String certificateData = serializeCertificateData(certificate);
-            String dataHash = createHash(certificateData);
-            String signature = signData(dataHash, certificate.getIssuer().getId());
+            String signature = signData(dataHash, verificationMethod);
 
             Long currentTime = System.currentTimeMillis();
 
@@ -43,19 +70,18 @@ public class DigitalSignatureUtil {
                     .type(configuration.getDefaultSignatureAlgorithm())
                     .created(currentTime)
                     .proofPurpose(configuration.getDefaultProofPurpose())
-                    .verificationMethod(certificate.getIssuer().getId() + "#key-1")
+                    .verificationMethod(verificationMethod)
                     .signatureValue(signature)
                     .build();
 
             log.info("Successfully created digital signature for certificate: {}", certificate.getId());
             return proof;
 
-        } catch (Exception e) {
+        } catch (GeneralSecurityException e) {
             log.error("Error creating digital signature for certificate {}: {}", 
                     certificate.getId(), e.getMessage(), e);
-            // In a real implementation, this might throw a more specific exception
-            // For now, we'll create a mock signature to keep the system functional
-            return createMockSignature(certificate);
+            throw new CustomException("SIGNATURE_CREATION_FAILED",
+                    "Unable to sign certificate: " + certificate.getId());
         }
     }
 
@@ -69,14 +95,7 @@ public class DigitalSignatureUtil {
                 return false;
             }
 
-            // In a real implementation, this would:
-            // 1. Recreate the canonical certificate data
-            // 2. Hash the data using the same algorithm
-            // 3. Retrieve the issuer's public key
-            // 4. Verify the signature using the public key
-
-            String certificateData = serializeCertificateData(certificate);
-            String dataHash = createHash(certificateData);
+            byte[] dataHash = HashUtil.hashCertificate(certificate);
             boolean isValid = verifySignature(dataHash, proof.getSignatureValue(), proof.getVerificationMethod());
 
             log.info("Signature verification result for certificate {}: {}", certificate.getId(), isValid);
@@ -89,77 +108,76 @@ public class DigitalSignatureUtil {
         }
     }
 
-    private String serializeCertificateData(Certificate certificate) {
-        // This is a simplified serialization for demonstration
-        // In a real implementation, this would use canonical JSON-LD serialization
-        
-        StringBuilder data = new StringBuilder();
-        data.append("id:").append(certificate.getId());
-        data.append("|tenantId:").append(certificate.getTenantId());
-        data.append("|context:").append(certificate.getContext());
-        data.append("|type:").append(String.join(",", certificate.getType()));
-        data.append("|issuer:").append(certificate.getIssuer().getId());
-        data.append("|issued:").append(certificate.getIssued());
-        
-        if (certificate.getExpirationDate() != null) {
-            data.append("|expires:").append(certificate.getExpirationDate());
+    private String signData(byte[] dataHash, String verificationMethod) throws GeneralSecurityException {
+        Signature signer = SIGNATURES.get();
+        signer.initSign(signingKeyRegistry.getPrivateKey(verificationMethod));
+        signer.update(dataHash);
+        return MULTIBASE_BASE58_PREFIX + encodeBase58(signer.sign());
+    }
+
+    private boolean verifySignature(byte[] dataHash, String signature, String verificationMethod) throws GeneralSecurityException {
+        if (signature == null || !signature.startsWith(MULTIBASE_BASE58_PREFIX) || verificationMethod == null) {
+            return false;
         }
-        
-        // Add credential subject data
-        if (certificate.getCredentialSubject() != null) {
-            data.append("|subject:").append(certificate.getCredentialSubject().toString());
+
+        PublicKey publicKey = signingKeyRegistry.getPublicKey(verificationMethod);
+        if (publicKey == null) {
+            log.warn("No public key found for verification method: {}", verificationMethod);
+            return false;
         }
 
-        return data.toString();
-    }
+        byte[] signatureBytes = decodeBase58(signature.substring(MULTIBASE_BASE58_PREFIX.length()));
+        if (signatureBytes == null) {
+            return false;
+        }
 
-    private String createHash(String data) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-        return Base64.getEncoder().encodeToString(hash);
+        Signature verifier = SIGNATURES.get();
+        verifier.initVerify(publicKey);
+        verifier.update(dataHash);
+        return verifier.verify(signatureBytes);
     }
 
-    private String signData(String dataHash, String issuerId) {
-        // This is a mock implementation
-        // In a real implementation, this would:
-        // 1. Retrieve the issuer's private key from secure storage
-        // 2. Use Ed25519 or RSA to sign the hash
-        // 3. Return the signature in the appropriate format
+    private static String encodeBase58(byte[] input) {
+        int leadingZeros = 0;
+        while (leadingZeros < input.length && input[leadingZeros] == 0) {
+            leadingZeros++;
+        }
 
-        String mockSignature = "z" + UUID.randomUUID().toString().replace("-", "") +
-                              Base64.getEncoder().encodeToString(dataHash.getBytes()).substring(0, 16);
-        
-        return mockSignature;
+        StringBuilder encoded = new StringBuilder();
+        BigInteger value = new BigInteger(1, input);
+        while (value.signum() > 0) {
+            BigInteger[] divRem = value.divideAndRemainder(BASE58_RADIX);
+            encoded.append(BASE58_ALPHABET.charAt(divRem[1].intValue()));
+            value = divRem[0];
+        }
+        for (int i = 0; i < leadingZeros; i++) {
+            encoded.append(BASE58_ALPHABET.charAt(0));
+        }
+        return encoded.reverse().toString();
     }
 
-    private boolean verifySignature(String dataHash, String signature, String verificationMethod) {
-        // This is a mock implementation
-        // In a real implementation, this would:
-        // 1. Retrieve the public key from the verification method
-        // 2. Use the appropriate algorithm to verify the signature
-        // 3. Return the verification result
-
-        // Simple validation - check if signature has expected format
-        return signature != null && 
-               signature.startsWith("z") && 
-               signature.length() > 40;
-    }
+    private static byte[] decodeBase58(String input) {
+        BigInteger value = BigInteger.ZERO;
+        int leadingZeros = 0;
+        boolean leading = true;
+        for (char c : input.toCharArray()) {
+            int digit = BASE58_ALPHABET.indexOf(c);
+            if (digit < 0) {
+                return null;
+            }
+            if (leading && digit == 0) {
+                leadingZeros++;
+            } else {
+                leading = false;
+            }
+            value = value.multiply(BASE58_RADIX).add(BigInteger.valueOf(digit));
+        }
 
-    private Proof createMockSignature(Certificate certificate) {
-        // Fallback mock signature for demonstration purposes
-        log.warn("Creating mock signature for certificate: {}", certificate.getId());
-        
-        Long currentTime = System.currentTimeMillis();
-        String mockSignature = "z" + UUID.randomUUID().toString().replace("-", "") + 
-                              Integer.toHexString(certificate.hashCode());
-
-        return Proof.builder()
-                .type(configuration.getDefaultSignatureAlgorithm())
-                .created(currentTime)
-                .proofPurpose(configuration.getDefaultProofPurpose())
-                .verificationMethod(certificate.getIssuer().getId() + "#key-1")
-                .signatureValue(mockSignature)
-                .build();
+        byte[] magnitude = value.signum() == 0 ? new byte[0] : value.toByteArray();
+        int stripSign = magnitude.length > 1 && magnitude[0] == 0 ? 1 : 0;
+        byte[] decoded = new byte[leadingZeros + magnitude.length - stripSign];
+        System.arraycopy(magnitude, stripSign, decoded, leadingZeros, magnitude.length - stripSign);
+        return decoded;
     }
 
     public String generateProofId() {
@@ -0,0 +1,69 @@
+package org.egov.certificate.util;
+
+import org.egov.certificate.web.models.Certificate;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SHA-256 hashing of certificate signing payloads. Digest instances are kept per thread instead of being
+ * looked up on every call, and all methods work on raw bytes.
+ */
+public final class HashUtil {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported by this JVM", e);
+        }
+    });
+
+    public static byte[] sha256(byte[] data, int offset, int length) {
+        MessageDigest digest = digest();
+        digest.update(data, offset, length);
+        return digest.digest();
+    }
+
+    public static byte[] sha256(ByteBuffer data) {
+        MessageDigest digest = digest();
+        digest.update(data);
+        return digest.digest();
+    }
+
+    /**
+     * Hashes the canonical signing payload of the certificate.
+     */
+    public static byte[] hashCertificate(Certificate certificate) {
+        CanonicalJsonWriter.Buffer payload = CanonicalJsonWriter.writeCertificate(certificate);
+        return sha256(payload.array(), 0, payload.length());
+    }
+
+    /**
+     * Hashes the signing payloads of a batch of certificates on the calling thread, reusing the same
+     * serialization buffer and digest; the result follows the order of {@code certificates}.
+     */
+    public static List<byte[]> hashCertificates(List<Certificate> certificates) {
+        List<byte[]> hashes = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            hashes.add(hashCertificate(certificate));
+        }
+        return hashes;
+    }
+
+    private static MessageDigest digest() {
+        MessageDigest digest = DIGESTS.get();
+        // Drop any state left behind by a call that failed half way
+        digest.reset();
+        return digest;
+    }
+
+    private HashUtil() {
+        // Utility class
+    }
+}
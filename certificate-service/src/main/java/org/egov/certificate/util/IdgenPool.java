@@ -0,0 +1,220 @@
+package org.egov.certificate.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.certificate.config.CertificateConfiguration;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.common.contract.request.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps a block of pre-fetched IDs per (tenantId, idName) so that enrichment normally hands out IDs
+ * without calling egov-idgen. When a pool drops below the low-water mark it is refilled in the
+ * background, as a system user rather than on behalf of whichever client request happened to drain it;
+ * when it cannot satisfy a request the shortfall is fetched synchronously for that request.
+ * <p>
+ * IDs embed the date placeholders of their format, e.g. the financial year of {@code [fy:yyyy-yy]}, as of
+ * the time they were generated. A pool is therefore emptied once the values of those placeholders
+ * change, so that no ID carries an outdated year. Without a format the one used by idgen is unknown and
+ * pools are emptied daily.
+ */
+@Component
+@Slf4j
+public class IdgenPool {
+
+    private static final Pattern DATE_PLACEHOLDER = Pattern.compile("\\[(cy|fy):([^\\]]+)]");
+    private static final int FINANCIAL_YEAR_START_MONTH = 4;
+
+    private final IdgenUtil idgenUtil;
+    private final CertificateConfiguration configuration;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, IdBlock> pools = new ConcurrentHashMap<>();
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idgen-pool-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public IdgenPool(IdgenUtil idgenUtil, CertificateConfiguration configuration, MeterRegistry meterRegistry) {
+        this.idgenUtil = idgenUtil;
+        this.configuration = configuration;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns {@code count} IDs for the tenant. Falls back to a direct idgen call when pooling is disabled.
+     */
+    public List<String> getIds(RequestInfo requestInfo, String tenantId, String idName, String idFormat, int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        if (!Boolean.TRUE.equals(configuration.getIdGenPoolEnabled())) {
+            return idgenUtil.getIdList(requestInfo, tenantId, idName, idFormat, count);
+        }
+
+        IdBlock block = pools.computeIfAbsent(tenantId + "|" + idName,
+                key -> new IdBlock(tenantId, idName, idFormat));
+        block.expireIfStale(dateContext(idFormat));
+
+        List<String> ids = new ArrayList<>(count);
+        String id;
+        while (ids.size() < count && (id = block.ids.poll()) != null) {
+            ids.add(id);
+        }
+        block.size.addAndGet(-ids.size());
+
+        if (ids.size() == count) {
+            block.hits.increment();
+        } else {
+            block.misses.increment();
+            // Only the shortfall is fetched for this request; the pool is refilled by the system user
+            ids.addAll(idgenUtil.getIdList(requestInfo, tenantId, idName, idFormat, count - ids.size()));
+        }
+
+        scheduleRefillIfRequired(block);
+        return ids;
+    }
+
+    private void scheduleRefillIfRequired(IdBlock block) {
+        if (block.size.get() >= configuration.getIdGenPoolLowWaterMark() || !block.refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        refillExecutor.execute(() -> {
+            try {
+                String context = dateContext(block.idFormat);
+                List<String> fetched = idgenUtil.getIdList(systemRequestInfo(), block.tenantId, block.idName,
+                        block.idFormat, configuration.getIdGenPoolBlockSize());
+                block.offer(fetched, context);
+                block.refills.increment();
+                log.debug("Refilled ID pool for tenant: {}, idName: {} with {} IDs", block.tenantId, block.idName, fetched.size());
+            } catch (Exception e) {
+                log.error("Failed to refill ID pool for tenant: {}, idName: {}", block.tenantId, block.idName, e);
+            } finally {
+                block.refilling.set(false);
+            }
+        });
+    }
+
+    /**
+     * Values the date placeholders of the format currently resolve to; pooled IDs are only valid while
+     * they stay the same.
+     */
+    private String dateContext(String idFormat) {
+        LocalDate today = LocalDate.now(ZoneId.of(configuration.getTimeZone()));
+        if (idFormat == null) {
+            return today.toString();
+        }
+
+        StringBuilder context = new StringBuilder();
+        Matcher matcher = DATE_PLACEHOLDER.matcher(idFormat);
+        while (matcher.find()) {
+            if ("fy".equals(matcher.group(1))) {
+                // Financial years run from April to March and are named after their starting year
+                int startYear = today.getMonthValue() >= FINANCIAL_YEAR_START_MONTH ? today.getYear() : today.getYear() - 1;
+                context.append("fy").append(startYear).append('|');
+            } else {
+                try {
+                    context.append(today.format(DateTimeFormatter.ofPattern(matcher.group(2)))).append('|');
+                } catch (IllegalArgumentException e) {
+                    // A pattern only idgen understands; fall back to expiring the pool daily
+                    context.append(today).append('|');
+                }
+            }
+        }
+        return context.toString();
+    }
+
+    private RequestInfo systemRequestInfo() {
+        return RequestInfo.builder()
+                .apiId("certificate-service")
+                .ts(System.currentTimeMillis())
+                .userInfo(User.builder()
+                        .uuid(configuration.getIdGenPoolSystemUserUuid())
+                        .type("SYSTEM")
+                        .build())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    private class IdBlock {
+        private final String tenantId;
+        private final String idName;
+        private final String idFormat;
+        private final ConcurrentLinkedQueue<String> ids = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter refills;
+        private final Counter expiries;
+        private volatile String dateContext;
+
+        private IdBlock(String tenantId, String idName, String idFormat) {
+            this.tenantId = tenantId;
+            this.idName = idName;
+            this.idFormat = idFormat;
+            this.hits = meterRegistry.counter("certificate.idgen.pool.hits", "tenantId", tenantId, "idName", idName);
+            this.misses = meterRegistry.counter("certificate.idgen.pool.misses", "tenantId", tenantId, "idName", idName);
+            this.refills = meterRegistry.counter("certificate.idgen.pool.refills", "tenantId", tenantId, "idName", idName);
+            this.expiries = meterRegistry.counter("certificate.idgen.pool.expiries", "tenantId", tenantId, "idName", idName);
+            Gauge.builder("certificate.idgen.pool.size", size, AtomicInteger::get)
+                    .tag("tenantId", tenantId)
+                    .tag("idName", idName)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Adds IDs fetched under the given date context; they are dropped if the context has changed
+         * while they were fetched.
+         */
+        private synchronized void offer(List<String> fetched, String context) {
+            if (context.equals(dateContext)) {
+                ids.addAll(fetched);
+                size.addAndGet(fetched.size());
+            }
+        }
+
+        private void expireIfStale(String context) {
+            if (context.equals(dateContext)) {
+                return;
+            }
+            synchronized (this) {
+                if (dateContext == null || !dateContext.equals(context)) {
+                    if (dateContext != null && !ids.isEmpty()) {
+                        expiries.increment();
+                        log.info("Dropped the ID pool for tenant: {}, idName: {} as its date context changed", tenantId, idName);
+                    }
+                    ids.clear();
+                    size.set(0);
+                    dateContext = context;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.egov.certificate.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map backed by the raw JSON text of a JSONB column. The JSON is only parsed when the map is first
+ * read or modified; until then it is written back verbatim as a raw value, so search results that are
+ * returned untouched never deserialize their JSONB columns at all.
+ * <p>
+ * bank-account-service keeps an identical copy in {@code org.egov.util}: the two services are built and
+ * deployed separately and share no library module. Changes must be made to both copies.
+ */
+@Slf4j
+@JsonSerialize(using = LazyJsonMap.Serializer.class)
+public class LazyJsonMap extends AbstractMap<String, Object> {
+
+    private final ObjectReader reader;
+    private volatile String json;
+    private volatile Map<String, Object> map;
+
+    /**
+     * @param reader reader producing a mutable {@code Map<String, Object>}
+     */
+    public LazyJsonMap(String json, ObjectReader reader) {
+        this.json = json;
+        this.reader = reader;
+    }
+
+    public boolean isMaterialized() {
+        return map != null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return map().entrySet();
+    }
+
+    @Override
+    public Object get(Object key) {
+        return map().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map().containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return map().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return map().remove(key);
+    }
+
+    @Override
+    public int size() {
+        return map().size();
+    }
+
+    @Override
+    public void clear() {
+        map().clear();
+    }
+
+    private Map<String, Object> map() {
+        Map<String, Object> materialized = map;
+        if (materialized != null) {
+            return materialized;
+        }
+        synchronized (this) {
+            if (map == null) {
+                try {
+                    map = reader.readValue(json);
+                } catch (IOException e) {
+                    log.error("Error parsing JSON value: {}", e.getMessage());
+                    map = new LinkedHashMap<>();
+                }
+                json = null;
+            }
+            return map;
+        }
+    }
+
+    public static class Serializer extends StdSerializer<LazyJsonMap> {
+
+        public Serializer() {
+            super(LazyJsonMap.class);
+        }
+
+        @Override
+        public void serialize(LazyJsonMap value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            Map<String, Object> materialized;
+            String raw;
+            synchronized (value) {
+                materialized = value.map;
+                raw = value.json;
+            }
+            if (materialized == null) {
+                gen.writeRawValue(raw);
+            } else {
+                provider.defaultSerializeValue(materialized, gen);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.egov.certificate.util;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.certificate.config.CertificateConfiguration;
+import org.egov.tracer.model.CustomException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * File-backed registry of Ed25519 keys, resolved per proof verificationMethod. Each key is stored in the
+ * configured directory as {@code <method>.private} (PKCS#8) and {@code <method>.public} (X.509), both
+ * Base64 encoded, where {@code <method>} is the hex SHA-256 of the verificationMethod. Parsed keys are
+ * cached for the lifetime of the service.
+ * <p>
+ * Missing keys are only generated when explicitly enabled, which is meant for local setups: generated
+ * keys exist on one instance only and any caller naming a new issuer would get a key for it.
+ */
+@Component
+@Slf4j
+public class SigningKeyRegistry {
+
+    public static final String KEY_ALGORITHM = "Ed25519";
+
+    private static final String PRIVATE_KEY_SUFFIX = ".private";
+    private static final String PUBLIC_KEY_SUFFIX = ".public";
+    private static final Set<PosixFilePermission> PRIVATE_KEY_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+    private static final Set<PosixFilePermission> KEY_DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+
+    @Autowired
+    private CertificateConfiguration configuration;
+
+    private final Map<String, PrivateKey> privateKeys = new ConcurrentHashMap<>();
+    private final Map<String, PublicKey> publicKeys = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (Boolean.TRUE.equals(configuration.getSigningKeyGenerateMissing())) {
+            log.warn("Signing keys are generated on demand for unknown verification methods; "
+                    + "do not enable certificate.signature.key.generate.missing outside local setups");
+        }
+    }
+
+    /**
+     * Returns the signing key of the verification method. When no key exists and generation is enabled
+     * a new key pair is created and stored; otherwise signing fails.
+     */
+    public PrivateKey getPrivateKey(String verificationMethod) {
+        return privateKeys.computeIfAbsent(verificationMethod, method -> {
+            Path privateKeyPath = resolveKeyPath(method, PRIVATE_KEY_SUFFIX);
+            if (!Files.exists(privateKeyPath) && Boolean.TRUE.equals(configuration.getSigningKeyGenerateMissing())) {
+                generateKeyPair(method);
+            }
+            if (!Files.exists(privateKeyPath)) {
+                throw new CustomException("SIGNING_KEY_NOT_FOUND", "No signing key found for verification method: " + method);
+            }
+
+            try {
+                return KeyFactory.getInstance(KEY_ALGORITHM).generatePrivate(new PKCS8EncodedKeySpec(readKey(privateKeyPath)));
+            } catch (IOException | GeneralSecurityException e) {
+                throw new CustomException("SIGNING_KEY_INVALID", "Unable to load signing key for verification method: " + method);
+            }
+        });
+    }
+
+    /**
+     * Returns the public key of the verification method, or null when the registry does not know it.
+     */
+    public PublicKey getPublicKey(String verificationMethod) {
+        PublicKey publicKey = publicKeys.get(verificationMethod);
+        if (publicKey != null) {
+            return publicKey;
+        }
+
+        Path publicKeyPath = resolveKeyPath(verificationMethod, PUBLIC_KEY_SUFFIX);
+        if (!Files.exists(publicKeyPath)) {
+            return null;
+        }
+
+        try {
+            publicKey = KeyFactory.getInstance(KEY_ALGORITHM).generatePublic(new X509EncodedKeySpec(readKey(publicKeyPath)));
+        } catch (IOException | GeneralSecurityException e) {
+            log.error("Unable to load public key for verification method: {}", verificationMethod, e);
+            return null;
+        }
+        publicKeys.put(verificationMethod, publicKey);
+        return publicKey;
+    }
+
+    private void generateKeyPair(String verificationMethod) {
+        try {
+            KeyPair keyPair = KeyPairGenerator.getInstance(KEY_ALGORITHM).generateKeyPair();
+            Path directory = Paths.get(configuration.getSigningKeyDirectory());
+            if (!Files.exists(directory)) {
+                Files.createDirectories(directory, permissions(KEY_DIRECTORY_PERMISSIONS));
+            }
+            // The private key is created owner-only before anything is written to it
+            writeKey(resolveKeyPath(verificationMethod, PRIVATE_KEY_SUFFIX), keyPair.getPrivate().getEncoded(),
+                    permissions(PRIVATE_KEY_PERMISSIONS));
+            writeKey(resolveKeyPath(verificationMethod, PUBLIC_KEY_SUFFIX), keyPair.getPublic().getEncoded());
+            publicKeys.put(verificationMethod, keyPair.getPublic());
+            log.warn("Generated new signing key pair for verification method: {}", verificationMethod);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new CustomException("SIGNING_KEY_GENERATION_FAILED",
+                    "Unable to generate signing key for verification method: " + verificationMethod);
+        }
+    }
+
+    private Path resolveKeyPath(String verificationMethod, String suffix) {
+        // Hashing keeps distinct verification methods on distinct files, whatever characters they contain
+        byte[] method = verificationMethod.getBytes(StandardCharsets.UTF_8);
+        byte[] digest = HashUtil.sha256(method, 0, method.length);
+        return Paths.get(configuration.getSigningKeyDirectory(), HexFormat.of().formatHex(digest) + suffix);
+    }
+
+    private static FileAttribute<?>[] permissions(Set<PosixFilePermission> permissions) {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return new FileAttribute<?>[0];
+        }
+        return new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(permissions)};
+    }
+
+    private static byte[] readKey(Path path) throws IOException {
+        return Base64.getMimeDecoder().decode(Files.readString(path, StandardCharsets.US_ASCII).trim());
+    }
+
+    private static void writeKey(Path path, byte[] encoded, FileAttribute<?>... attributes) throws IOException {
+        Files.createFile(path, attributes);
+        Files.writeString(path, Base64.getEncoder().encodeToString(encoded), StandardCharsets.US_ASCII);
+    }
+}
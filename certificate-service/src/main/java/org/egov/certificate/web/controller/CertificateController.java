@@ -7,8 +7,10 @@ import org.egov.certificate.web.models.*;
 import org.egov.common.contract.response.ResponseInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -57,8 +59,9 @@ public class CertificateController {
         
         log.info("Received request to search certificates");
         
-        List<Certificate> certificates = certificateService.searchCertificates(searchRequest);
-        Integer totalCount = certificateService.getCertificateCount(searchRequest.getSearchCriteria());
+        CertificateSearchResult result = certificateService.searchCertificates(searchRequest);
+        List<Certificate> certificates = result.getCertificates();
+        Integer totalCount = result.getTotalCount();
         
         ResponseInfo responseInfo = ResponseInfo.builder()
                 .apiId(searchRequest.getRequestInfo().getApiId())
@@ -73,12 +76,26 @@ public class CertificateController {
                 .responseInfo(responseInfo)
                 .certificates(certificates)
                 .totalCount(totalCount)
+                .nextCursor(result.getNextCursor())
                 .build();
 
-        log.info("Successfully retrieved {} certificates out of {} total", certificates.size(), totalCount);
+        log.info("Successfully retrieved {} certificates out of {} total", certificates.size(),
+                totalCount != null ? totalCount : "uncounted");
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @PostMapping(value = "/_export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCertificates(
+            @Valid @RequestBody CertificateSearchRequest searchRequest) {
+
+        log.info("Received request to export certificates");
+
+        StreamingResponseBody body = certificateService.exportCertificates(searchRequest);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @PostMapping("/_update")
     public ResponseEntity<CertificateResponse> updateCertificates(
             @Valid @RequestBody CertificateRequest certificateRequest) {
@@ -160,6 +177,32 @@ public class CertificateController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @PostMapping("/_verify/_bulk")
+    public ResponseEntity<CertificateBulkVerificationResponse> verifyCertificates(
+            @Valid @RequestBody CertificateBulkVerificationRequest verificationRequest) {
+
+        log.info("Received request to verify certificates in bulk");
+
+        List<VerificationResult> verificationResults = verificationService.verifyCertificates(verificationRequest);
+
+        ResponseInfo responseInfo = ResponseInfo.builder()
+                .apiId(verificationRequest.getRequestInfo().getApiId())
+                .ver(verificationRequest.getRequestInfo().getVer())
+                .ts(System.currentTimeMillis())
+                .resMsgId(verificationRequest.getRequestInfo().getMsgId())
+                .msgId(verificationRequest.getRequestInfo().getMsgId())
+                .status("successful")
+                .build();
+
+        CertificateBulkVerificationResponse response = CertificateBulkVerificationResponse.builder()
+                .responseInfo(responseInfo)
+                .verificationResults(verificationResults)
+                .build();
+
+        log.info("Successfully verified {} certificates", verificationResults.size());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return new ResponseEntity<>("Certificate Service is running", HttpStatus.OK);
@@ -0,0 +1,26 @@
+package org.egov.certificate.web.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.egov.common.contract.response.ResponseInfo;
+
+import jakarta.validation.Valid;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CertificateBulkVerificationResponse {
+
+    @JsonProperty("ResponseInfo")
+    @Valid
+    private ResponseInfo responseInfo;
+
+    @JsonProperty("verificationResults")
+    @Valid
+    private List<VerificationResult> verificationResults;
+}
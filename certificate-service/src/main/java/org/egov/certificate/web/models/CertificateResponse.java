@@ -28,4 +28,7 @@ public class CertificateResponse {
 
     @JsonProperty("totalCount")
     private Integer totalCount;
+
+    @JsonProperty("nextCursor")
+    private String nextCursor;
 }
\ No newline at end of file
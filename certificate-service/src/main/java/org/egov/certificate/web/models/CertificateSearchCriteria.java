@@ -66,4 +66,12 @@ public class CertificateSearchCriteria {
     @Min(0)
     @Builder.Default
     private Integer offset = 0;
+
+    @JsonProperty("includeTotalCount")
+    @Builder.Default
+    private String includeTotalCount = "exact";
+
+    @JsonProperty("cursor")
+    @Size(max = 1024)
+    private String cursor;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package org.egov.certificate.web.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of certificates together with the paging details returned to the caller.
+ * totalCount is null when the count was not requested.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CertificateSearchResult {
+
+    private List<Certificate> certificates;
+
+    private Integer totalCount;
+
+    private String nextCursor;
+}
@@ -37,4 +37,7 @@ public class VerificationResult {
 
     @JsonProperty("verificationDetails")
     private Map<String, Object> verificationDetails;
+
+    @JsonProperty("errors")
+    private Map<String, String> errors;
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+-- Composite index backing keyset pagination on (issued_at, id) within a tenant.
+-- It also serves every query the (tenant_id, issued_at) index was used for.
+CREATE INDEX IF NOT EXISTS idx_certificate_tenant_issued_id ON eg_certificate (tenant_id, issued_at, id);
+
+DROP INDEX IF EXISTS idx_certificate_tenant_issued;
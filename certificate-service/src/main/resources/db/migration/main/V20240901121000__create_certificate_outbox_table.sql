@@ -0,0 +1,14 @@
+-- Kafka records whose send failed, kept until the outbox relay has published them
+
+CREATE TABLE IF NOT EXISTS eg_certificate_outbox(
+    id                          BIGSERIAL PRIMARY KEY,
+    topic                       VARCHAR(256) NOT NULL,
+    record_key                  VARCHAR(512),
+    payload                     TEXT NOT NULL,
+    attempts                    INTEGER NOT NULL DEFAULT 0,
+    next_attempt_time           BIGINT NOT NULL,
+    last_error                  VARCHAR(1024),
+    created_time                BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_certificate_outbox_next_attempt ON eg_certificate_outbox (next_attempt_time, id);
@@ -0,0 +1,2 @@
+-- Records of one key are replayed in order, and new records of a key with records in the outbox queue behind them
+CREATE INDEX IF NOT EXISTS idx_certificate_outbox_record_key ON eg_certificate_outbox (record_key, id);
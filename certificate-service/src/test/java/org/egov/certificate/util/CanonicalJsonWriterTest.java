@@ -0,0 +1,131 @@
+package org.egov.certificate.util;
+
+import org.egov.certificate.web.models.Certificate;
+import org.egov.certificate.web.models.Issuer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CanonicalJsonWriterTest {
+
+    @Test
+    public void testCertificateFieldsAreWrittenInKeyOrderWithoutNulls() {
+        Certificate certificate = Certificate.builder()
+                .type("BIRTH")
+                .tenantId("pb.amritsar")
+                .issuer(Issuer.builder().id("did:egov:issuer").name("Registrar").build())
+                .issued(1700000000000L)
+                .id("cert-1")
+                .context("https://www.w3.org/2018/credentials/v1")
+                .build();
+
+        assertEquals("{\"context\":\"https://www.w3.org/2018/credentials/v1\",\"id\":\"cert-1\","
+                + "\"issued\":1700000000000,\"issuer\":\"did:egov:issuer\",\"tenantId\":\"pb.amritsar\","
+                + "\"type\":\"BIRTH\"}", write(certificate));
+    }
+
+    @Test
+    public void testMapKeysAreSortedByUtf16CodeUnits() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("z", 1);
+        nested.put("a", 2);
+
+        Map<String, Object> subject = new LinkedHashMap<>();
+        subject.put("name", "x");
+        subject.put("\uFB33", "hebrew");
+        // U+1F600 is above U+FB33 as a code point, but its high surrogate U+D83D sorts first
+        subject.put("\uD83D\uDE00", "emoji");
+        subject.put("address", nested);
+        subject.put("B", true);
+
+        assertEquals("{\"credentialSubject\":{\"B\":true,\"address\":{\"a\":2,\"z\":1},\"name\":\"x\","
+                + "\"\uD83D\uDE00\":\"emoji\",\"\uFB33\":\"hebrew\"}}", write(subject(subject)));
+    }
+
+    @Test
+    public void testOutputDoesNotDependOnInsertionOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("a", 1);
+        first.put("b", List.of("x", "y"));
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("b", List.of("x", "y"));
+        second.put("a", 1);
+
+        assertArrayEquals(bytes(subject(first)), bytes(subject(second)));
+    }
+
+    @Test
+    public void testNumbersAreNormalized() {
+        Map<String, Object> subject = new LinkedHashMap<>();
+        subject.put("a", 1.0d);
+        subject.put("b", 1e2d);
+        subject.put("c", new BigDecimal("1.500"));
+        subject.put("d", -0.0d);
+        subject.put("e", 1);
+        subject.put("f", 1L);
+        subject.put("g", new BigInteger("12345678901234567890"));
+        subject.put("h", 0.1f);
+        subject.put("i", 1e21d);
+        subject.put("j", new BigDecimal("0E-10"));
+
+        assertEquals("{\"credentialSubject\":{\"a\":1,\"b\":100,\"c\":1.5,\"d\":0,\"e\":1,\"f\":1,"
+                + "\"g\":12345678901234567890,\"h\":0.10000000149011612,\"i\":1000000000000000000000,\"j\":0}}",
+                write(subject(subject)));
+    }
+
+    @Test
+    public void testNonAsciiStringsAreWrittenAsUtf8() {
+        Map<String, Object> subject = new LinkedHashMap<>();
+        subject.put("name", "\u00E9\u20AC\uD83D\uDE00");
+
+        byte[] expected = "{\"credentialSubject\":{\"name\":\"\u00E9\u20AC\uD83D\uDE00\"}}"
+                .getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, bytes(subject(subject)));
+        // The surrogate pair is one four-byte sequence, not two three-byte ones
+        byte[] actual = bytes(subject(subject));
+        assertArrayEquals(new byte[]{(byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80},
+                Arrays.copyOfRange(actual, actual.length - 7, actual.length - 3));
+    }
+
+    @Test
+    public void testControlCharactersAreEscaped() {
+        Map<String, Object> subject = new LinkedHashMap<>();
+        subject.put("s", "a\"b\\c\n\t\u0001");
+
+        assertEquals("{\"credentialSubject\":{\"s\":\"a\\\"b\\\\c\\n\\t\\u0001\"}}", write(subject(subject)));
+    }
+
+    @Test
+    public void testNonFiniteNumbersAreRejected() {
+        Map<String, Object> nan = new LinkedHashMap<>();
+        nan.put("value", Double.NaN);
+        Map<String, Object> infinite = new LinkedHashMap<>();
+        infinite.put("value", Float.POSITIVE_INFINITY);
+
+        assertThrows(IllegalArgumentException.class, () -> CanonicalJsonWriter.writeCertificate(subject(nan)));
+        assertThrows(IllegalArgumentException.class, () -> CanonicalJsonWriter.writeCertificate(subject(infinite)));
+    }
+
+    private static Certificate subject(Map<String, Object> credentialSubject) {
+        return Certificate.builder().credentialSubject(credentialSubject).build();
+    }
+
+    private static byte[] bytes(Certificate certificate) {
+        CanonicalJsonWriter.Buffer buffer = CanonicalJsonWriter.writeCertificate(certificate);
+        return Arrays.copyOf(buffer.array(), buffer.length());
+    }
+
+    private static String write(Certificate certificate) {
+        return new String(bytes(certificate), StandardCharsets.UTF_8);
+    }
+}